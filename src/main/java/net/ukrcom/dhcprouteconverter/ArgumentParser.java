@@ -32,6 +32,17 @@ public class ArgumentParser {
     private boolean applyConfig;
     private boolean read;
     private boolean printMissingPools;
+    private String batchInput;
+    private String routesFile;
+    private boolean summarize;
+    private int maxOptionBytes;
+    private int parallelism;
+    private int maxConcurrentSessions;
+    private int netconfTimeout;
+    private int commitConfirmed;
+    private String snapshotCache;
+    private String sshKex;
+    private String sshHostKey;
     private final String[] args;
 
     public ArgumentParser(String[] args) {
@@ -43,6 +54,9 @@ public class ArgumentParser {
         this.applyConfig = false;
         this.read = false;
         this.printMissingPools = false;
+        this.parallelism = 1;
+        this.maxConcurrentSessions = 32;
+        this.netconfTimeout = 60;
         this.args = args;
         parse();
     }
@@ -54,6 +68,12 @@ public class ArgumentParser {
                 debug = true;
             } else if (arg.equals("--print")) {
                 printMissingPools = true;
+            } else if (arg.equals("--batch")) {
+                batchInput = "-";
+            } else if (arg.startsWith("--batch=")) {
+                batchInput = arg.substring("--batch=".length());
+            } else if (arg.startsWith("--routes-file=")) {
+                routesFile = arg.substring("--routes-file=".length());
             } else if (arg.startsWith("--config=")) {
                 configFile = arg.substring("--config=".length());
             } else if (arg.startsWith("--add-default-multi-pool=")) {
@@ -71,6 +91,24 @@ public class ArgumentParser {
                 withWarningLoopback = true;
             } else if (arg.equals("--with-option-249")) {
                 withOption249 = true;
+            } else if (arg.equals("--summarize")) {
+                summarize = true;
+            } else if (arg.startsWith("--max-option-bytes=")) {
+                maxOptionBytes = parsePositiveInt("--max-option-bytes", arg.substring("--max-option-bytes=".length()));
+            } else if (arg.startsWith("--parallelism=")) {
+                parallelism = parsePositiveInt("--parallelism", arg.substring("--parallelism=".length()));
+            } else if (arg.startsWith("--max-concurrent-sessions=")) {
+                maxConcurrentSessions = parsePositiveInt("--max-concurrent-sessions", arg.substring("--max-concurrent-sessions=".length()));
+            } else if (arg.startsWith("--netconf-timeout=")) {
+                netconfTimeout = parsePositiveInt("--netconf-timeout", arg.substring("--netconf-timeout=".length()));
+            } else if (arg.startsWith("--commit-confirmed=")) {
+                commitConfirmed = parsePositiveInt("--commit-confirmed", arg.substring("--commit-confirmed=".length()));
+            } else if (arg.startsWith("--snapshot-cache=")) {
+                snapshotCache = arg.substring("--snapshot-cache=".length());
+            } else if (arg.startsWith("--ssh-kex=")) {
+                sshKex = arg.substring("--ssh-kex=".length());
+            } else if (arg.startsWith("--ssh-host-key=")) {
+                sshHostKey = arg.substring("--ssh-host-key=".length());
             } else if (arg.equals("--get-config")) {
                 getConfig = true;
             } else if (arg.equals("--apply-config")) {
@@ -186,6 +224,89 @@ public class ArgumentParser {
         return printMissingPools;
     }
 
+    /**
+     * @return Batch input file, "-" for stdin, or null if --batch was not
+     * given.
+     */
+    public String getBatchInput() {
+        return batchInput;
+    }
+
+    public String getRoutesFile() {
+        return routesFile;
+    }
+
+    public boolean isSummarize() {
+        return summarize;
+    }
+
+    public int getMaxOptionBytes() {
+        return maxOptionBytes;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxConcurrentSessions() {
+        return maxConcurrentSessions;
+    }
+
+    /**
+     * @return Per-router NETCONF timeout in seconds, applied to the SSH
+     * connect and to every RPC.
+     */
+    public int getNetconfTimeout() {
+        return netconfTimeout;
+    }
+
+    /**
+     * @return Confirm timeout in seconds for --apply-config commits, 0 for a
+     * plain commit.
+     */
+    public int getCommitConfirmed() {
+        return commitConfirmed;
+    }
+
+    /**
+     * @return Directory for per-router pool snapshots reused while the
+     * router's last commit is unchanged, or null if --snapshot-cache was not
+     * given.
+     */
+    public String getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    /**
+     * @return Comma-separated SSH key exchange algorithms in order of
+     * preference, or null for the built-in list.
+     */
+    public String getSshKex() {
+        return sshKex;
+    }
+
+    /**
+     * @return Comma-separated SSH host key algorithms in order of preference,
+     * or null for the built-in list.
+     */
+    public String getSshHostKey() {
+        return sshHostKey;
+    }
+
+    private int parsePositiveInt(String option, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // повідомлення нижче
+        }
+        System.err.println("ERROR: " + option + " expects a positive number, got '" + value + "'");
+        System.exit(1);
+        return 0;
+    }
+
     private void sayCommonRoutesError() {
         System.err.println("ERROR: In --to-dhcp-options mode, it is not possible to use network/gateway pairs and the --common-routes=<network1,gateway1,...> option at the same time.");
         System.exit(1);
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * SSH jump host through which NETCONF sessions to routers are tunnelled.
+ * Defined in the "bastion" section of the global configuration or of a
+ * router:
+ *
+ * <pre>
+ * bastion:
+ *   host: jump.example.net
+ *   port: 22
+ *   username: jump
+ *   password: secret
+ *   max-channels: 16
+ * </pre>
+ *
+ * Two definitions with the same host, port and user name share one SSH
+ * connection.
+ */
+public class BastionConfig {
+
+    public static final int DEFAULT_PORT = 22;
+    public static final int DEFAULT_MAX_CHANNELS = 16;
+
+    private String host;
+    private int port;
+    private String username;
+    private String password;
+    private int maxChannels;
+
+    public BastionConfig() {
+        this.port = DEFAULT_PORT;
+        this.maxChannels = DEFAULT_MAX_CHANNELS;
+    }
+
+    /**
+     * @param map YAML "bastion" section.
+     * @return Bastion definition.
+     * @throws IllegalArgumentException If the host is missing or a number is
+     * not positive.
+     */
+    public static BastionConfig fromMap(Map<String, Object> map) {
+        BastionConfig config = new BastionConfig();
+        config.host = (String) map.get("host");
+        if (config.host == null || config.host.isBlank()) {
+            throw new IllegalArgumentException("bastion host is missing");
+        }
+        config.port = positive(map, "port", DEFAULT_PORT);
+        config.username = (String) map.get("username");
+        config.password = (String) map.get("password");
+        config.maxChannels = positive(map, "max-channels", DEFAULT_MAX_CHANNELS);
+        return config;
+    }
+
+    private static int positive(Map<String, Object> map, String key, int defaultValue) {
+        Object value = map.getOrDefault(key, defaultValue);
+        if (!(value instanceof Number) || ((Number) value).intValue() <= 0) {
+            throw new IllegalArgumentException("bastion " + key + " must be a positive number, got " + value);
+        }
+        return ((Number) value).intValue();
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * @return Maximum number of router sessions tunnelled at the same time.
+     */
+    public int getMaxChannels() {
+        return maxChannels;
+    }
+
+    public void setMaxChannels(int maxChannels) {
+        this.maxChannels = maxChannels;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof BastionConfig other && port == other.port
+                && Objects.equals(host, other.host) && Objects.equals(username, other.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, username);
+    }
+
+    @Override
+    public String toString() {
+        return (username != null ? username + "@" : "") + host + ":" + port;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+
+/**
+ * Streams route-set records through the converter, one result per record.
+ *
+ * Two record layouts are accepted, one record per line:
+ * <ul>
+ * <li>NDJSON, e.g.
+ * {@code {"pool":"r540pool1","format":"junos","routes":["10.0.0.0/8,10.0.0.1"],"default-gateway":"94.176.198.17"}}
+ * or {@code {"pool":"p1","format":"decode","hex":"080a7f00000a"}}. The answer
+ * is written as one NDJSON line per record.</li>
+ * <li>Plain text: {@code <pool> <format> <network1,gateway1,...>} or
+ * {@code <pool> decode <hex>}. The answer is written as the usual text
+ * lines.</li>
+ * </ul>
+ * Blank lines and lines starting with '#' are skipped. Only one record is held
+ * in memory at a time and output goes through a fixed-size buffer that is
+ * flushed whenever the input has nothing more queued.
+ */
+public class BatchProcessor {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final DhcpOptionConverter converter;
+    private final ArgumentParser globalOptions;
+    private final Load load;
+    private final List<String> networks = new ArrayList<>();
+    private final List<String> gateways = new ArrayList<>();
+    private final RouteList routes = new RouteList();
+    private long records;
+    private long failures;
+
+    public BatchProcessor(DhcpOptionConverter converter, ArgumentParser globalOptions) {
+        this.converter = converter;
+        this.globalOptions = globalOptions;
+        this.load = new Load(LoadSettings.builder().build());
+    }
+
+    /**
+     * Processes every record from the reader and writes results to the writer.
+     *
+     * @param in Record source.
+     * @param out Result sink; it is flushed but not closed.
+     * @throws IOException If reading or writing fails.
+     */
+    public void process(BufferedReader in, Writer out) throws IOException {
+        StringBuilder pending = new StringBuilder(OUTPUT_BUFFER_SIZE);
+        String line;
+        long lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String record = line.trim();
+            if (record.isEmpty() || record.startsWith("#")) {
+                continue;
+            }
+            records++;
+            int start = pending.length();
+            try {
+                if (record.startsWith("{")) {
+                    processJson(record, pending);
+                } else {
+                    processText(record, pending);
+                }
+            } catch (RuntimeException e) {
+                // Відкидаємо недописану відповідь, щоб не склеїти її з наступною
+                pending.setLength(start);
+                failures++;
+                System.err.println("ERROR: Batch record at line " + lineNumber + ": "
+                        + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            }
+            // Пишемо порціями: або буфер заповнився, або на вході поки що нічого немає
+            if (pending.length() >= OUTPUT_BUFFER_SIZE || !in.ready()) {
+                out.append(pending);
+                out.flush();
+                pending.setLength(0);
+            }
+        }
+        out.append(pending);
+        out.flush();
+        if (globalOptions.isDebug()) {
+            System.err.println("DEBUG: Batch processed " + records + " record(s), " + failures + " failed");
+        }
+    }
+
+    /**
+     * @return Number of records processed so far.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return Number of records that could not be processed.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    private void processText(String record, StringBuilder out) {
+        String[] fields = record.split("\\s+");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("expected '<pool> <format> <routes|hex>' but found " + fields.length + " field(s)");
+        }
+        String pool = fields[0];
+        String format = fields[1];
+        if (format.equalsIgnoreCase("decode")) {
+            for (String route : converter.parseDhcpOptions(fields[2])) {
+                out.append("Route: ").append(route).append('\n');
+            }
+            return;
+        }
+        networks.clear();
+        gateways.clear();
+        addRoutePairs(fields[2]);
+        for (String option : generate(pool, format, null)) {
+            out.append(option).append('\n');
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processJson(String record, StringBuilder out) {
+        Object parsed = load.loadFromString(record);
+        if (!(parsed instanceof Map)) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        Map<String, Object> map = (Map<String, Object>) parsed;
+        String pool = map.get("pool") != null ? map.get("pool").toString() : null;
+        String format = map.get("format") != null ? map.get("format").toString() : "default";
+
+        out.append("{\"pool\":");
+        appendJsonString(pool, out);
+        if (format.equalsIgnoreCase("decode")) {
+            Object hex = map.get("hex");
+            if (hex == null) {
+                throw new IllegalArgumentException("decode record has no \"hex\" field");
+            }
+            out.append(",\"routes\":");
+            appendJsonArray(converter.parseDhcpOptions(hex.toString()), out);
+            out.append("}\n");
+            return;
+        }
+
+        networks.clear();
+        gateways.clear();
+        Object defaultGateway = map.get("default-gateway");
+        Object routeField = map.get("routes");
+        if (routeField instanceof List) {
+            for (Object route : (List<Object>) routeField) {
+                if (route instanceof Map) {
+                    Map<String, Object> pair = (Map<String, Object>) route;
+                    networks.add(String.valueOf(pair.get("network")));
+                    gateways.add(String.valueOf(pair.get("gateway")));
+                } else if (route != null) {
+                    addRoutePairs(route.toString());
+                }
+            }
+        } else if (routeField != null) {
+            addRoutePairs(routeField.toString());
+        }
+        out.append(",\"options\":");
+        appendJsonArray(generate(pool, format, defaultGateway != null ? defaultGateway.toString() : null), out);
+        out.append("}\n");
+    }
+
+    private List<String> generate(String pool, String format, String defaultGateway) {
+        DhcpOptionConverter.Format outputFormat;
+        try {
+            outputFormat = DhcpOptionConverter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown format " + format);
+        }
+        routes.clear();
+        if (defaultGateway != null) {
+            converter.parseRoute("0.0.0.0/0", defaultGateway, RouteList.Source.DEFAULT_GATEWAY, routes);
+        }
+        converter.parseRoutes(networks, gateways, RouteList.Source.COMMON, routes);
+        ConversionResult result = converter.generateDhcpOptions(routes, globalOptions.isWithOption249(), outputFormat,
+                pool != null ? pool : globalOptions.getJunosPoolName(),
+                pool != null ? pool : globalOptions.getCiscoPoolName());
+        result.printMessages(System.err);
+        return result.getOptions();
+    }
+
+    private void addRoutePairs(String pairs) {
+        String[] routes = pairs.split(",");
+        if (routes.length % 2 != 0) {
+            throw new IllegalArgumentException("incomplete network/gateway pair in " + pairs);
+        }
+        for (int i = 0; i < routes.length; i += 2) {
+            networks.add(routes[i].trim());
+            gateways.add(routes[i + 1].trim());
+        }
+    }
+
+    private static void appendJsonArray(List<String> values, StringBuilder out) {
+        out.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendJsonString(values.get(i), out);
+        }
+        out.append(']');
+    }
+
+    private static void appendJsonString(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' ->
+                    out.append("\\\"");
+                case '\\' ->
+                    out.append("\\\\");
+                case '\n' ->
+                    out.append("\\n");
+                case '\r' ->
+                    out.append("\\r");
+                case '\t' ->
+                    out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
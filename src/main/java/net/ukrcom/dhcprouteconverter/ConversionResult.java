@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable outcome of converting the routes of one pool: the formatted
+ * option lines, the encoded routes, whether a default route was present and
+ * the messages produced on the way. The converter itself keeps no per-call
+ * state, so results can be produced concurrently and printed by the caller in
+ * whatever order it needs.
+ */
+public final class ConversionResult {
+
+    public static final ConversionResult EMPTY = new Builder().build(new ArrayList<>(), RouteSet.EMPTY);
+
+    private final List<String> options;
+    private final RouteSet routes;
+    private final boolean hasDefaultRoute;
+    private final List<String> warnings;
+    private final List<String> diagnostics;
+
+    private ConversionResult(List<String> options, RouteSet routes, boolean hasDefaultRoute,
+            List<String> warnings, List<String> diagnostics) {
+        this.options = List.copyOf(options);
+        this.routes = routes;
+        this.hasDefaultRoute = hasDefaultRoute;
+        this.warnings = List.copyOf(warnings);
+        this.diagnostics = List.copyOf(diagnostics);
+    }
+
+    /**
+     * @return Formatted DHCP option lines, empty if no route was encoded.
+     */
+    public List<String> getOptions() {
+        return options;
+    }
+
+    /**
+     * @return Encoded routes.
+     */
+    public RouteSet getRoutes() {
+        return routes;
+    }
+
+    /**
+     * @return True if the routes contained 0.0.0.0/0.
+     */
+    public boolean hasDefaultRoute() {
+        return hasDefaultRoute;
+    }
+
+    /**
+     * @return "WARNING: ..." lines (overridden, unreachable, dropped routes,
+     * oversized options, loopback gateways).
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * @return "INFO: ..." lines (summarization and budget reports) and, with
+     * --debug, "DEBUG: ..." lines for every encoded route.
+     */
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Prints warnings and diagnostics, one per line.
+     *
+     * @param out Destination stream, usually {@code System.err}.
+     */
+    public void printMessages(PrintStream out) {
+        for (String warning : warnings) {
+            out.println(warning);
+        }
+        for (String diagnostic : diagnostics) {
+            out.println(diagnostic);
+        }
+    }
+
+    /**
+     * Collects the messages and flags of one conversion.
+     */
+    public static final class Builder {
+
+        private final List<String> warnings = new ArrayList<>();
+        private final List<String> diagnostics = new ArrayList<>();
+        private boolean hasDefaultRoute;
+
+        /**
+         * @param message Warning text without the "WARNING: " prefix.
+         */
+        public void warn(String message) {
+            warnings.add("WARNING: " + message);
+        }
+
+        /**
+         * @param message Report text without the "INFO: " prefix.
+         */
+        public void info(String message) {
+            diagnostics.add("INFO: " + message);
+        }
+
+        /**
+         * @param message Debug text without the "DEBUG: " prefix.
+         */
+        public void debug(String message) {
+            diagnostics.add("DEBUG: " + message);
+        }
+
+        /**
+         * Marks that the routes contain 0.0.0.0/0.
+         */
+        public void defaultRoute() {
+            hasDefaultRoute = true;
+        }
+
+        /**
+         * @param options Formatted option lines.
+         * @param routes Encoded routes.
+         * @return Immutable result.
+         */
+        public ConversionResult build(List<String> options, RouteSet routes) {
+            return new ConversionResult(options, routes, hasDefaultRoute, warnings, diagnostics);
+        }
+    }
+}
@@ -15,26 +15,29 @@
 package net.ukrcom.dhcprouteconverter;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Converts network routes to DHCP option 121 or 249 hex strings.
+ *
+ * The converter holds no per-call state: every conversion returns an
+ * immutable {@link ConversionResult}, so one instance can serve concurrent
+ * callers. Only the encode caches are shared, and they are thread-safe.
  */
 public class DhcpOptionConverter {
 
-    private boolean hasDefaultRoute;
     private final ArgumentParser globalOptions;
+    private final RouteSetCache encodeCache;
+    private final AppendCache appendCache;
 
     public enum Format {
         DEFAULT, ISC, ROUTEROS, JUNOS, CISCO, WINDOWS
     }
 
     public DhcpOptionConverter(ArgumentParser globalOptions) {
-        this.hasDefaultRoute = false;
         this.globalOptions = globalOptions;
+        this.encodeCache = new RouteSetCache();
+        this.appendCache = new AppendCache();
     }
 
     /**
@@ -46,135 +49,409 @@ public class DhcpOptionConverter {
      * @param format Output format (e.g., ISC, JUNOS).
      * @param junosPoolName Pool name for JunOS format.
      * @param ciscoPoolName Pool name for Cisco format.
-     * @return List of formatted DHCP option strings.
+     * @return Conversion result with the formatted DHCP option strings.
      */
-    public List<String> generateDhcpOptions(List<String> networks, List<String> gateways,
+    public ConversionResult generateDhcpOptions(List<String> networks, List<String> gateways,
             boolean withOption249, Format format, String junosPoolName, String ciscoPoolName) {
 
         if (networks.size() != gateways.size()) {
             System.err.println("ERROR: Mismatch between networks and gateways count");
-            return new ArrayList<>();
+            return ConversionResult.EMPTY;
+        }
+
+        return generateDhcpOptions(parseRoutes(networks, gateways), withOption249, format, junosPoolName, ciscoPoolName);
+    }
+
+    /**
+     * Generates DHCP options from already parsed routes.
+     *
+     * @param routes Parsed routes.
+     * @param withOption249 If true, includes option 249 (Microsoft-specific).
+     * @param format Output format (e.g., ISC, JUNOS).
+     * @param junosPoolName Pool name for JunOS format.
+     * @param ciscoPoolName Pool name for Cisco format.
+     * @return Conversion result with the formatted DHCP option strings.
+     */
+    public ConversionResult generateDhcpOptions(RouteList routes,
+            boolean withOption249, Format format, String junosPoolName, String ciscoPoolName) {
+
+        ConversionResult.Builder result = new ConversionResult.Builder();
+        String poolName = format == Format.CISCO ? ciscoPoolName : junosPoolName;
+        RouteSet encoded = encode(routes, withOption249, poolName, result);
+        return formatEncoded(encoded, withOption249, format, junosPoolName, ciscoPoolName, result);
+    }
+
+    /**
+     * Generates DHCP options for pool routes followed by a precompiled shared
+     * segment. When no pool route overlaps a network of the segment (apart
+     * from a default route, which only matters when the other routes could
+     * cover the whole address space) and no stage needs to see all routes at
+     * once (--summarize, --max-option-bytes, --with-warning-loopback), only
+     * the pool routes are encoded and the segment's bytes are appended
+     * unchanged.
+     *
+     * @param routes Pool-specific routes.
+     * @param segment Shared routes, e.g. the global append-routes.
+     * @param withOption249 If true, includes option 249 (Microsoft-specific).
+     * @param format Output format (e.g., ISC, JUNOS).
+     * @param junosPoolName Pool name for JunOS format.
+     * @param ciscoPoolName Pool name for Cisco format.
+     * @return Conversion result with the formatted DHCP option strings.
+     */
+    public ConversionResult generateDhcpOptions(RouteList routes, RouteSegment segment,
+            boolean withOption249, Format format, String junosPoolName, String ciscoPoolName) {
+
+        ConversionResult.Builder result = new ConversionResult.Builder();
+        String poolName = format == Format.CISCO ? ciscoPoolName : junosPoolName;
+        RouteSet encoded = encode(routes, segment, withOption249, poolName, result);
+        return formatEncoded(encoded, withOption249, format, junosPoolName, ciscoPoolName, result);
+    }
+
+    /**
+     * Encodes pool routes followed by a shared segment exactly like
+     * {@link #generateDhcpOptions(RouteList, RouteSegment, boolean, Format, String, String)},
+     * without rendering any option text. Used where only the routes are
+     * compared.
+     *
+     * @param routes Pool-specific routes.
+     * @param segment Shared routes, e.g. the global append-routes.
+     * @param withOption249 If true, option 249 is sent as well.
+     * @param poolName Pool name for diagnostics, may be null.
+     * @return Conversion result with the encoded routes, its messages and no
+     * options.
+     */
+    public ConversionResult generateRoutes(RouteList routes, RouteSegment segment, boolean withOption249, String poolName) {
+        ConversionResult.Builder result = new ConversionResult.Builder();
+        RouteSet encoded = encode(routes, segment, withOption249, poolName, result);
+        if (!encoded.isEmpty()) {
+            reportEncoded(encoded, withOption249, poolName, result);
         }
+        return result.build(new ArrayList<>(), encoded);
+    }
+
+    private RouteSet encode(RouteList routes, boolean withOption249, String poolName, ConversionResult.Builder result) {
+        routes = resolveConflicts(routes, poolName, result);
+        noteDefaultRoute(routes, result);
+        // Маршрути з loopback-шлюзом відкидаються до підсумовування і бюджету, щоб не займати місце
+        routes = filterLoopback(routes, result);
+        if (globalOptions != null && globalOptions.isSummarize()) {
+            routes = summarizeRoutes(routes, poolName, result);
+        }
+        if (globalOptions != null && globalOptions.getMaxOptionBytes() > 0) {
+            routes = new OptionBudgetPlanner(globalOptions.getMaxOptionBytes(), withOption249).plan(routes, poolName, result);
+        }
+
+        // Пули з однаковим набором маршрутів ділять одне закодоване значення
+        return encodeCache.get(routes, DhcpOptionConverter::encodeRoutes);
+    }
 
-        String aggregateHex = "";
-        for (int i = 0; i < networks.size(); i++) {
-            String hex = convertToHexRoute(networks.get(i), gateways.get(i));
-            if (!hex.isEmpty()) {
-                aggregateHex += hex;
+    private RouteSet encode(RouteList routes, RouteSegment segment, boolean withOption249, String poolName,
+            ConversionResult.Builder result) {
+        if (segment.isEmpty()) {
+            return encode(routes, withOption249, poolName, result);
+        }
+        boolean wholeList = globalOptions != null && (globalOptions.isSummarize()
+                || globalOptions.getMaxOptionBytes() > 0 || globalOptions.isWithWarningLoopback());
+        // Маршрут, що перетинається з сегментом, може перекрити його маршрут або стати недосяжним
+        boolean defaultRoute = false;
+        long span = segment.getAddressSpan();
+        for (int i = 0; i < routes.size() && !wholeList; i++) {
+            if (routes.prefixLength(i) == 0) {
+                defaultRoute = true;
+                wholeList = segment.hasDefaultRoute();
+            } else {
+                wholeList = segment.overlaps(routes.prefix(i), routes.prefixLength(i));
+                span += 1L << (32 - routes.prefixLength(i));
             }
         }
+        if (!wholeList && (defaultRoute || segment.hasDefaultRoute())) {
+            // 0.0.0.0/0 недосяжний, лише якщо решта маршрутів покриває весь простір адрес
+            wholeList = span >= 1L << 32;
+        }
+        if (wholeList) {
+            RouteList combined = new RouteList(routes.size() + segment.size());
+            combined.addAll(routes);
+            segment.appendTo(combined);
+            return encode(combined, withOption249, poolName, result);
+        }
 
-        if (aggregateHex.isEmpty()) {
-            return new ArrayList<>();
+        routes = resolveConflicts(routes, poolName, result);
+        noteDefaultRoute(routes, result);
+        if (segment.hasDefaultRoute()) {
+            result.defaultRoute();
         }
+        return appendCache.forSegment(segment).get(routes,
+                poolRoutes -> RouteSet.concat(encodeRoutes(poolRoutes), segment.getEncoded()));
+    }
 
-        if (globalOptions.isDebug()) {
-            System.out.println("DEBUG: Generated hex string: " + aggregateHex);
+    /**
+     * @return Cache of encoded route sets shared by all pools converted by
+     * this instance.
+     */
+    public RouteSetCache getEncodeCache() {
+        return encodeCache;
+    }
+
+    /**
+     * @return Cache of pool routes encoded together with the last shared
+     * segment, or null if no segment has been used yet.
+     */
+    public RouteSetCache getAppendCache() {
+        return appendCache.current();
+    }
+
+    private ConversionResult formatEncoded(RouteSet encoded, boolean withOption249, Format format,
+            String junosPoolName, String ciscoPoolName, ConversionResult.Builder result) {
+        if (encoded.isEmpty()) {
+            return result.build(new ArrayList<>(), encoded);
         }
+        reportEncoded(encoded, withOption249, format == Format.CISCO ? ciscoPoolName : junosPoolName, result);
 
         OutputFormatter formatter = new OutputFormatter();
-        return formatter.formatDhcpOptions(aggregateHex, withOption249, format, junosPoolName, ciscoPoolName);
+        return result.build(formatter.formatDhcpOptions(encoded, withOption249, format, junosPoolName, ciscoPoolName), encoded);
+    }
+
+    private void reportEncoded(RouteSet encoded, boolean withOption249, String poolName, ConversionResult.Builder result) {
+        if (globalOptions != null && globalOptions.isDebug()) {
+            encoded.forEach((prefix, prefixLength, gateway) -> {
+                byte[] route = new byte[RouteCodec.MAX_ROUTE_BYTES];
+                int length = RouteCodec.encode(prefix, prefixLength, gateway, route, 0);
+                result.debug("Parsing network: " + RouteCodec.formatAddress(prefix) + "/" + prefixLength
+                        + ", gateway: " + RouteCodec.formatAddress(gateway));
+                result.debug("Generated hex for route: " + RouteCodec.toHex(route, 0, length));
+            });
+            result.debug("Generated hex string: " + encoded.toHex());
+        }
+        checkOptionSize(encoded, withOption249, poolName, result);
     }
 
     /**
-     * Converts a network and gateway to a DHCP option hex string.
+     * Warns when the options need RFC 3396 splitting or do not fit into the
+     * options space of a minimum-size DHCP message; relays and clients are
+     * free to drop such options.
      *
-     * @param network Network in CIDR format (e.g., "192.168.1.0/24").
-     * @param gateway Gateway IP (e.g., "10.0.0.1").
-     * @return Hex string for the route, or empty if invalid.
+     * @param encoded Encoded routes.
+     * @param withOption249 If true, option 249 is sent as well.
+     * @param poolName Pool name for diagnostics, may be null.
+     * @param result Receives the warnings.
      */
-    String convertToHexRoute(String network, String gateway) {
-        // Parse network and subnet mask
-        Pattern cidrPattern = Pattern.compile("^(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})/(\\d{1,2})$");
-        Matcher matcher = cidrPattern.matcher(network);
-        if (!matcher.matches()) {
-            System.err.println("ERROR: Invalid network format: " + network);
-            return "";
+    private void checkOptionSize(RouteSet encoded, boolean withOption249, String poolName, ConversionResult.Builder result) {
+        String pool = poolName != null ? "Pool " + poolName + ": " : "";
+        if (globalOptions != null && globalOptions.isDebug()) {
+            result.debug(pool + DhcpOptionWriter.sizeReport(encoded, withOption249));
         }
-
-        String[] networkParts = matcher.group(1).split("\\.");
-        int subnetMask;
-        try {
-            subnetMask = Integer.parseInt(matcher.group(2));
-        } catch (NumberFormatException e) {
-            System.err.println("ERROR: Invalid subnet mask: " + matcher.group(2));
-            return "";
+        if (encoded.encodedLength() > DhcpOptionWriter.MAX_OPTION_LENGTH) {
+            result.warn(pool + DhcpOptionWriter.sizeReport(encoded, withOption249)
+                    + "; clients and relays without RFC 3396 support will drop it");
+        } else if (DhcpOptionWriter.wireLength(encoded, withOption249) > DhcpOptionWriter.MIN_OPTIONS_SPACE) {
+            result.warn(pool + DhcpOptionWriter.sizeReport(encoded, withOption249)
+                    + ", more than the " + DhcpOptionWriter.MIN_OPTIONS_SPACE + " bytes of options every client accepts");
         }
+    }
 
-        if (subnetMask < 0 || subnetMask > 32) {
-            System.err.println("ERROR: Invalid subnet mask: " + subnetMask);
-            return "";
+    /**
+     * Applies the route priority (default gateway > common routes > append
+     * routes) to routes naming the same network and warns about routes that
+     * more specific ones make unreachable.
+     *
+     * @param routes Routes of one pool.
+     * @param poolName Pool name for diagnostics, may be null.
+     * @param result Receives the warnings.
+     * @return Routes without duplicate networks, in input order.
+     */
+    private RouteList resolveConflicts(RouteList routes, String poolName, ConversionResult.Builder result) {
+        String pool = poolName != null ? "Pool " + poolName + ": " : "";
+        boolean debug = globalOptions != null && globalOptions.isDebug();
+        return RouteTrie.resolve(routes, new RouteTrie.ConflictListener() {
+            @Override
+            public void overridden(int winner, int loser) {
+                if (routes.gateway(winner) != routes.gateway(loser)) {
+                    result.warn(pool + "Route " + describe(routes, loser) + " is overridden by " + describe(routes, winner));
+                } else if (debug) {
+                    result.debug(pool + "Duplicate route " + describe(routes, loser) + " dropped");
+                }
+            }
+
+            @Override
+            public void unreachable(int route) {
+                result.warn(pool + "Route " + describe(routes, route) + " is unreachable, more specific routes cover all of it");
+            }
+        });
+    }
+
+    /**
+     * Formats a route for diagnostics, e.g. "10.0.0.0/8 via 10.0.0.1 (common
+     * routes)".
+     *
+     * @param routes Route list.
+     * @param index Route index.
+     * @return Route description.
+     */
+    static String describe(RouteList routes, int index) {
+        return RouteCodec.formatAddress(routes.prefix(index)) + "/" + routes.prefixLength(index)
+                + " via " + RouteCodec.formatAddress(routes.gateway(index)) + " (" + routes.source(index).getLabel() + ")";
+    }
+
+    /**
+     * Collapses prefixes that share a gateway without changing the
+     * longest-prefix-match result, and reports the bytes saved.
+     *
+     * @param routes Routes of one pool.
+     * @param poolName Pool name for the report, may be null.
+     * @param result Receives the report.
+     * @return Summarized routes.
+     */
+    private RouteList summarizeRoutes(RouteList routes, String poolName, ConversionResult.Builder result) {
+        RouteTrie trie = RouteTrie.of(routes);
+        trie.summarize();
+        RouteList summarized = trie.toRouteList();
+        int before = encodedLength(routes);
+        int after = encodedLength(summarized);
+        result.info("Summarized " + (poolName != null ? "pool " + poolName : "routes") + ": "
+                + routes.size() + " -> " + summarized.size() + " route(s), option 121 "
+                + before + " -> " + after + " bytes (saved " + (before - after) + ")");
+        return summarized;
+    }
+
+    private static int encodedLength(RouteList routes) {
+        int length = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            length += RouteCodec.encodedLength(routes.prefixLength(i));
         }
+        return length;
+    }
+
+    /**
+     * Parses network/gateway pairs, reporting and skipping invalid ones.
+     *
+     * @param networks List of networks (e.g., "192.168.1.0/24", "0.0.0.0/0").
+     * @param gateways List of gateways (e.g., "10.0.0.1").
+     * @return Parsed routes in input order.
+     */
+    public RouteList parseRoutes(List<String> networks, List<String> gateways) {
+        RouteList routes = new RouteList(networks.size());
+        parseRoutes(networks, gateways, RouteList.Source.COMMON, routes);
+        return routes;
+    }
 
-        if (subnetMask == 0) {
-            hasDefaultRoute = true;
+    /**
+     * Parses network/gateway pairs of one source into an existing list,
+     * reporting and skipping invalid ones.
+     *
+     * @param networks List of networks (e.g., "192.168.1.0/24", "0.0.0.0/0").
+     * @param gateways List of gateways (e.g., "10.0.0.1").
+     * @param source Origin of the routes.
+     * @param routes Destination list.
+     */
+    public void parseRoutes(List<String> networks, List<String> gateways, RouteList.Source source, RouteList routes) {
+        int count = Math.min(networks.size(), gateways.size());
+        for (int i = 0; i < count; i++) {
+            parseRoute(networks.get(i), gateways.get(i), source, routes);
         }
+    }
 
-        // Перевірка loopback-адреси
-        if (globalOptions.isWithWarningLoopback() && gateway.startsWith("127.")) {
-            System.err.println("WARNING: Gateway " + gateway + " is in loopback range (127.0.0.0/8)");
+    /**
+     * Converts a network and gateway to a DHCP option hex string.
+     *
+     * @param network Network in CIDR format (e.g., "192.168.1.0/24").
+     * @param gateway Gateway IP (e.g., "10.0.0.1").
+     * @return Hex string for the route, or empty if invalid.
+     */
+    String convertToHexRoute(String network, String gateway) {
+        RouteList routes = new RouteList(1);
+        if (!parseRoute(network, gateway, RouteList.Source.COMMON, routes)) {
             return "";
         }
+        ConversionResult.Builder result = new ConversionResult.Builder();
+        String hex = encodeRoutes(filterLoopback(routes, result)).toHex();
+        result.build(new ArrayList<>(), RouteSet.EMPTY).printMessages(System.err);
+        return hex;
+    }
+
+    /**
+     * Validates a network/gateway pair and appends it to a route list.
+     *
+     * @param network Network in CIDR format (e.g., "192.168.1.0/24").
+     * @param gateway Gateway IP (e.g., "10.0.0.1").
+     * @param source Origin of the route.
+     * @param routes Destination list.
+     * @return True if the route was added, false if it is invalid.
+     */
+    public boolean parseRoute(String network, String gateway, RouteList.Source source, RouteList routes) {
+        return addRoute(network, gateway, source, routes);
+    }
 
-        // Parse gateway
-        Pattern ipPattern = Pattern.compile("^(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})$");
-        matcher = ipPattern.matcher(gateway);
-        if (!matcher.matches()) {
+    /**
+     * {@link #parseRoute} for callers that have no converter, such as
+     * configuration loading.
+     *
+     * @param network Network in CIDR format (e.g., "192.168.1.0/24").
+     * @param gateway Gateway IP (e.g., "10.0.0.1").
+     * @param source Origin of the route.
+     * @param routes Destination list.
+     * @return True if the route was added, false if it is invalid.
+     */
+    static boolean addRoute(String network, String gateway, RouteList.Source source, RouteList routes) {
+        long cidr = network == null ? RouteCodec.INVALID : RouteCodec.parseCidr(network);
+        if (cidr == RouteCodec.INVALID) {
+            System.err.println("ERROR: Invalid network format: " + network);
+            return false;
+        }
+        long gatewayAddress = gateway == null ? RouteCodec.INVALID : RouteCodec.parseAddress(gateway);
+        if (gatewayAddress == RouteCodec.INVALID) {
             System.err.println("ERROR: Invalid gateway format: " + gateway);
-            return "";
+            return false;
         }
+        routes.add(RouteCodec.cidrAddress(cidr), RouteCodec.cidrLength(cidr), (int) gatewayAddress, source);
+        return true;
+    }
 
-        int[] gatewayOctets = new int[4];
-        for (int i = 0; i < 4; i++) {
-            try {
-                gatewayOctets[i] = Integer.parseInt(matcher.group(i + 1));
-                if (gatewayOctets[i] < 0 || gatewayOctets[i] > 255) {
-                    System.err.println("ERROR: Invalid gateway octet: " + matcher.group(i + 1));
-                    return "";
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("ERROR: Invalid gateway octet: " + matcher.group(i + 1));
-                return "";
+    private static void noteDefaultRoute(RouteList routes, ConversionResult.Builder result) {
+        for (int i = 0; i < routes.size(); i++) {
+            if (routes.prefixLength(i) == 0) {
+                result.defaultRoute();
+                return;
             }
         }
+    }
 
-        if (globalOptions.isDebug()) {
-            // Debug: Log network and gateway parsing
-            System.out.println("DEBUG: Parsing network: " + network + ", gateway: " + gateway);
-            System.out.println("DEBUG: Gateway octets: " + Arrays.toString(gatewayOctets));
+    /**
+     * Drops routes with a loopback gateway when --with-warning-loopback is
+     * set.
+     *
+     * @param routes Routes of one pool.
+     * @param result Receives a warning per dropped route.
+     * @return Routes without loopback gateways.
+     */
+    private RouteList filterLoopback(RouteList routes, ConversionResult.Builder result) {
+        if (globalOptions == null || !globalOptions.isWithWarningLoopback()) {
+            return routes;
         }
-
-        // Convert to hex
-        StringBuilder hex = new StringBuilder();
-        hex.append(String.format("%02x", subnetMask)); // Subnet mask
-
-        // Network octets (only significant ones based on mask)
-        int significantOctets = subnetMask == 0 ? 0 : (subnetMask + 7) / 8;
-        for (int i = 0; i < significantOctets; i++) {
-            try {
-                int octet = Integer.parseInt(networkParts[i]);
-                if (octet < 0 || octet > 255) {
-                    System.err.println("ERROR: Invalid network octet: " + networkParts[i]);
-                    return "";
-                }
-                hex.append(String.format("%02x", octet));
-            } catch (NumberFormatException e) {
-                System.err.println("ERROR: Invalid network octet: " + networkParts[i]);
-                return "";
+        RouteList filtered = new RouteList(routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            int gateway = routes.gateway(i);
+            // Перевірка loopback-адреси
+            if ((gateway >>> 24) == 127) {
+                result.warn("Gateway " + RouteCodec.formatAddress(gateway) + " is in loopback range (127.0.0.0/8)");
+                continue;
             }
+            filtered.add(routes.prefix(i), routes.prefixLength(i), gateway, routes.source(i));
         }
+        return filtered;
+    }
 
-        // Gateway octets
-        for (int octet : gatewayOctets) {
-            hex.append(String.format("%02x", octet));
-        }
-
-        if (globalOptions.isDebug()) {
-            // Debug: Log generated hex
-            System.out.println("DEBUG: Generated hex for route: " + hex);
+    /**
+     * Encodes routes as they are.
+     *
+     * @param routes Routes to encode.
+     * @return Encoded routes.
+     */
+    private static RouteSet encodeRoutes(RouteList routes) {
+        RouteSet.Builder builder = new RouteSet.Builder();
+        for (int i = 0; i < routes.size(); i++) {
+            builder.add(routes.prefix(i), routes.prefixLength(i), routes.gateway(i));
         }
-
-        return hex.toString();
+        return builder.build();
     }
 
     /**
@@ -185,82 +462,39 @@ public class DhcpOptionConverter {
      */
     public List<String> parseDhcpOptions(String hexString) {
         List<String> routes = new ArrayList<>();
-        int index = 0;
-
-        while (index < hexString.length()) {
-            // Read subnet mask (1 byte)
-            if (index + 2 > hexString.length()) {
-                System.err.println("ERROR: Incomplete hex string at subnet mask");
-                return routes;
-            }
-            String maskHex = hexString.substring(index, index + 2);
-            int subnetMask;
-            try {
-                subnetMask = Integer.parseInt(maskHex, 16);
-            } catch (NumberFormatException e) {
-                System.err.println("ERROR: Invalid subnet mask in hex: " + maskHex);
-                return routes;
-            }
-            if (subnetMask < 0 || subnetMask > 32) {
-                System.err.println("ERROR: Invalid subnet mask in hex: " + maskHex);
-                return routes;
-            }
-            index += 2;
-
-            // Calculate number of significant octets
-            int significantOctets = subnetMask == 0 ? 0 : (subnetMask + 7) / 8;
-
-            // Read destination network
-            int[] destination = new int[4];
-            for (int i = 0; i < significantOctets; i++) {
-                if (index + 2 > hexString.length()) {
-                    System.err.println("ERROR: Incomplete hex string at destination");
-                    return routes;
-                }
-                String octet = hexString.substring(index, index + 2);
-                try {
-                    destination[i] = Integer.parseInt(octet, 16);
-                } catch (NumberFormatException e) {
-                    System.err.println("ERROR: Invalid destination octet: " + octet);
-                    return routes;
-                }
-                index += 2;
-            }
-
-            // Read gateway (4 bytes)
-            int[] gateway = new int[4];
-            for (int i = 0; i < 4; i++) {
-                if (index + 2 > hexString.length()) {
-                    System.err.println("ERROR: Incomplete hex string at gateway");
-                    return routes;
-                }
-                String octet = hexString.substring(index, index + 2);
-                try {
-                    gateway[i] = Integer.parseInt(octet, 16);
-                } catch (NumberFormatException e) {
-                    System.err.println("ERROR: Invalid gateway octet: " + octet);
-                    return routes;
-                }
-                index += 2;
-            }
-
-            // Format route as "network/mask via gateway"
-            String network = String.format("%d.%d.%d.%d/%d",
-                    destination[0], destination[1], destination[2], destination[3], subnetMask);
-            String gw = String.format("%d.%d.%d.%d",
-                    gateway[0], gateway[1], gateway[2], gateway[3]);
-            routes.add(String.format("%s via %s", network, gw));
+        StringBuilder route = new StringBuilder(40);
+        try {
+            RouteCodec.decode(hexString, (prefix, prefixLength, gateway) -> {
+                // Format route as "network/mask via gateway"
+                route.setLength(0);
+                RouteCodec.appendAddress(prefix, route).append('/').append(prefixLength).append(" via ");
+                routes.add(RouteCodec.appendAddress(gateway, route).toString());
+            });
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
         }
-
         return routes;
     }
 
     /**
-     * Checks if a default route was detected during conversion.
-     *
-     * @return True if a default route (0.0.0.0/0) was processed.
+     * Cache of pool routes encoded together with a shared segment. It is valid
+     * for one segment only and starts over when another segment is used.
      */
-    public boolean hasDefaultRoute() {
-        return hasDefaultRoute;
+    private static final class AppendCache {
+
+        private RouteSegment segment;
+        private RouteSetCache cache;
+
+        synchronized RouteSetCache forSegment(RouteSegment newSegment) {
+            if (segment != newSegment) {
+                segment = newSegment;
+                cache = new RouteSetCache();
+            }
+            return cache;
+        }
+
+        synchronized RouteSetCache current() {
+            return cache;
+        }
     }
 }
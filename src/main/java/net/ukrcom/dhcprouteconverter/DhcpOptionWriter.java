@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes classless static route options in DHCP wire format (code, length,
+ * data). A payload longer than 255 bytes is split into several consecutive
+ * instances of the same option as described in RFC 3396; the receiver
+ * concatenates them back.
+ */
+public final class DhcpOptionWriter {
+
+    /**
+     * Classless Static Route option (RFC 3442).
+     */
+    public static final int OPTION_121 = 121;
+
+    /**
+     * Microsoft Classless Static Route option.
+     */
+    public static final int OPTION_249 = 249;
+
+    /**
+     * Largest data length of a single option instance.
+     */
+    public static final int MAX_OPTION_LENGTH = 255;
+
+    /**
+     * Options space every DHCP client must accept: a 576-byte message minus
+     * the fixed BOOTP header (RFC 2131).
+     */
+    public static final int MIN_OPTIONS_SPACE = 312;
+
+    private DhcpOptionWriter() {
+    }
+
+    /**
+     * @param payloadLength Option data length in bytes.
+     * @return Number of option instances needed to carry the data.
+     */
+    public static int instanceCount(int payloadLength) {
+        return (payloadLength + MAX_OPTION_LENGTH - 1) / MAX_OPTION_LENGTH;
+    }
+
+    /**
+     * @param payloadLength Option data length in bytes.
+     * @return Size of the option on the wire, including code and length bytes
+     * of every instance.
+     */
+    public static int wireLength(int payloadLength) {
+        return payloadLength + 2 * instanceCount(payloadLength);
+    }
+
+    /**
+     * @param routes Encoded routes.
+     * @param withOption249 If true, option 249 carries a copy of the routes.
+     * @return Total size on the wire of option 121 and, if requested, 249.
+     */
+    public static int wireLength(RouteSet routes, boolean withOption249) {
+        int length = wireLength(routes.encodedLength());
+        return withOption249 ? length * 2 : length;
+    }
+
+    /**
+     * Writes an option, splitting it into several instances when needed.
+     * Nothing is written for an empty payload.
+     *
+     * @param code Option code.
+     * @param payload Option data.
+     * @param offset Index of the first data byte.
+     * @param length Data length.
+     * @param dst Destination buffer.
+     * @return Number of option instances written.
+     * @throws BufferOverflowException If the buffer has no room for the whole
+     * option; the buffer is left unchanged.
+     */
+    public static int write(int code, byte[] payload, int offset, int length, ByteBuffer dst) {
+        if (dst.remaining() < wireLength(length)) {
+            throw new BufferOverflowException();
+        }
+        int instances = 0;
+        while (length > 0) {
+            int chunk = Math.min(length, MAX_OPTION_LENGTH);
+            dst.put((byte) code).put((byte) chunk).put(payload, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            instances++;
+        }
+        return instances;
+    }
+
+    /**
+     * Writes option 121 and, if requested, option 249 for a route set.
+     *
+     * @param routes Encoded routes.
+     * @param withOption249 If true, option 249 is written after option 121.
+     * @param dst Destination buffer.
+     * @return Number of option instances written.
+     * @throws BufferOverflowException If the buffer has no room for the
+     * options; the buffer is left unchanged.
+     */
+    public static int write(RouteSet routes, boolean withOption249, ByteBuffer dst) {
+        if (dst.remaining() < wireLength(routes, withOption249)) {
+            throw new BufferOverflowException();
+        }
+        byte[] payload = routes.toByteArray();
+        int instances = write(OPTION_121, payload, 0, payload.length, dst);
+        if (withOption249) {
+            instances += write(OPTION_249, payload, 0, payload.length, dst);
+        }
+        return instances;
+    }
+
+    /**
+     * Encodes option 121 and, if requested, option 249 into a new buffer.
+     *
+     * @param routes Encoded routes.
+     * @param withOption249 If true, option 249 is written after option 121.
+     * @return Buffer flipped for reading.
+     */
+    public static ByteBuffer toWire(RouteSet routes, boolean withOption249) {
+        ByteBuffer buffer = ByteBuffer.allocate(wireLength(routes, withOption249));
+        write(routes, withOption249, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Describes the wire size of the options, e.g. "option 121: 300 bytes in
+     * 2 instances (RFC 3396), 304 bytes on the wire".
+     *
+     * @param routes Encoded routes.
+     * @param withOption249 If true, option 249 is included in the total.
+     * @return One-line size report.
+     */
+    public static String sizeReport(RouteSet routes, boolean withOption249) {
+        int payload = routes.encodedLength();
+        int instances = instanceCount(payload);
+        StringBuilder report = new StringBuilder(96);
+        report.append(withOption249 ? "options 121 and 249: " : "option 121: ")
+                .append(payload).append(" bytes in ").append(instances)
+                .append(instances == 1 ? " instance" : " instances");
+        if (instances > 1) {
+            report.append(" (RFC 3396)");
+        }
+        if (withOption249) {
+            report.append(" each");
+        }
+        return report.append(", ").append(wireLength(routes, withOption249)).append(" bytes on the wire").toString();
+    }
+}
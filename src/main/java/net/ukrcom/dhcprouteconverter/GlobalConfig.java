@@ -20,15 +20,22 @@ import java.util.Map;
 
 public class GlobalConfig {
 
+    public static final String DEFAULT_DOMAIN_SUFFIX = ".ukrhub.net";
+
     private String username;
     private String password;
     private ApplyMethod applyMethod;
     private List<Map<String, String>> appendRoutes;
     private List<Map<String, String>> commonRoutes;
+    private RouteSegment appendSegment;
+    private BastionConfig bastion;
+    private String domainSuffix;
 
     public GlobalConfig() {
         this.appendRoutes = new ArrayList<>();
         this.commonRoutes = new ArrayList<>();
+        this.appendSegment = RouteSegment.EMPTY;
+        this.domainSuffix = DEFAULT_DOMAIN_SUFFIX;
     }
 
     @SuppressWarnings("unchecked")
@@ -42,7 +49,14 @@ public class GlobalConfig {
         }
         List<Map<String, String>> appendRoutes = (List<Map<String, String>>) map.get("append-routes");
         if (appendRoutes != null) {
-            config.appendRoutes = appendRoutes;
+            config.setAppendRoutes(appendRoutes);
+        }
+        if (map.containsKey("domain-suffix")) {
+            config.setDomainSuffix((String) map.get("domain-suffix"));
+        }
+        Map<String, Object> bastion = (Map<String, Object>) map.get("bastion");
+        if (bastion != null) {
+            config.bastion = BastionConfig.fromMap(bastion);
         }
         return config;
     }
@@ -77,6 +91,46 @@ public class GlobalConfig {
 
     public void setAppendRoutes(List<Map<String, String>> appendRoutes) {
         this.appendRoutes = appendRoutes;
+        this.appendSegment = RouteSegment.compile(appendRoutes, RouteList.Source.APPEND);
+    }
+
+    /**
+     * @return Append routes validated and encoded at load time.
+     */
+    public RouteSegment getAppendSegment() {
+        return appendSegment;
+    }
+
+    /**
+     * @return Jump host for all routers, or null to connect directly.
+     */
+    public BastionConfig getBastion() {
+        return bastion;
+    }
+
+    public void setBastion(BastionConfig bastion) {
+        this.bastion = bastion;
+    }
+
+    /**
+     * @return Suffix appended to router names to form their host names, with
+     * a leading dot, or "" if names are used as they are.
+     */
+    public String getDomainSuffix() {
+        return domainSuffix;
+    }
+
+    /**
+     * @param domainSuffix Domain such as "ukrhub.net" or ".ukrhub.net"; null
+     * or empty uses router names as they are.
+     */
+    public void setDomainSuffix(String domainSuffix) {
+        if (domainSuffix == null || domainSuffix.isBlank()) {
+            this.domainSuffix = "";
+        } else {
+            String trimmed = domainSuffix.trim();
+            this.domainSuffix = trimmed.startsWith(".") ? trimmed : "." + trimmed;
+        }
     }
 
     public List<Map<String, String>> getCommonRoutes() {
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves router host names ahead of the NETCONF fan-out, all at once,
+ * and caches the answers (including failures) for a TTL. Connections then
+ * go to the cached address instead of resolving inside the blocking connect.
+ *
+ * Lookups run on daemon platform threads: the JDK resolver blocks in native
+ * code, which would pin the carriers of virtual threads. A lookup that does
+ * not finish within the timeout is left uncached, so the connect resolves
+ * the name itself.
+ */
+public class HostResolver {
+
+    public static final int DEFAULT_TTL_SECONDS = 300;
+
+    /**
+     * Resolves one host name.
+     */
+    @FunctionalInterface
+    interface Lookup {
+
+        InetAddress resolve(String host) throws UnknownHostException;
+    }
+
+    private final long ttlNanos;
+    private final Lookup lookup;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlSeconds How long an answer is reused.
+     */
+    public HostResolver(int ttlSeconds) {
+        this(ttlSeconds, InetAddress::getByName);
+    }
+
+    /**
+     * @param ttlSeconds How long an answer is reused.
+     * @param lookup Resolves one host name.
+     */
+    HostResolver(int ttlSeconds, Lookup lookup) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Resolves the host names that have no fresh answer in the cache.
+     *
+     * @param hosts Host names.
+     * @param threads Maximum number of concurrent lookups.
+     * @param timeoutMillis Time to wait for all lookups.
+     * @return Number of host names looked up.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public int resolveAll(Collection<String> hosts, int threads, int timeoutMillis) throws InterruptedException {
+        long now = System.nanoTime();
+        List<Callable<Void>> lookups = new ArrayList<>();
+        for (String host : new LinkedHashSet<>(hosts)) {
+            Entry cached = cache.get(host);
+            if (cached == null || now - cached.resolvedAt > ttlNanos) {
+                lookups.add(() -> {
+                    resolve(host);
+                    return null;
+                });
+            }
+        }
+        if (lookups.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, lookups.size()),
+                Thread.ofPlatform().daemon().name("resolver-", 0).factory());
+        try {
+            executor.invokeAll(lookups, timeoutMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            // Завислі запити до резолвера не чекаємо: потоки демонічні
+            executor.shutdownNow();
+        }
+        return lookups.size();
+    }
+
+    private void resolve(String host) {
+        try {
+            cache.put(host, new Entry(lookup.resolve(host), null, System.nanoTime()));
+        } catch (UnknownHostException e) {
+            cache.put(host, new Entry(null, e.getMessage() != null ? e.getMessage() : host, System.nanoTime()));
+        }
+    }
+
+    /**
+     * @param host Host name.
+     * @return Fresh cached address, or null if the host was not resolved or
+     * could not be.
+     */
+    public InetAddress lookup(String host) {
+        Entry entry = fresh(host);
+        return entry != null ? entry.address : null;
+    }
+
+    /**
+     * @param host Host name.
+     * @return Resolver error if the host is known not to resolve, otherwise
+     * null.
+     */
+    public String getFailure(String host) {
+        Entry entry = fresh(host);
+        return entry != null ? entry.failure : null;
+    }
+
+    private Entry fresh(String host) {
+        Entry entry = cache.get(host);
+        return entry != null && System.nanoTime() - entry.resolvedAt <= ttlNanos ? entry : null;
+    }
+
+    private static final class Entry {
+
+        private final InetAddress address;
+        private final String failure;
+        private final long resolvedAt;
+
+        Entry(InetAddress address, String failure, long resolvedAt) {
+            this.address = address;
+            this.failure = failure;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
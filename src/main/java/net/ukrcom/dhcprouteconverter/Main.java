@@ -17,15 +17,35 @@ package net.ukrcom.dhcprouteconverter;
 import org.snakeyaml.engine.v2.api.Load;
 import org.snakeyaml.engine.v2.api.LoadSettings;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import net.ukrcom.dhcprouteconverter.outputFormat.BastionTunnels;
 import net.ukrcom.dhcprouteconverter.outputFormat.JUNOS;
+import net.ukrcom.dhcprouteconverter.outputFormat.NetconfSessionPool;
+import net.ukrcom.dhcprouteconverter.outputFormat.SshClientFactory;
 import org.slf4j.simple.SimpleLogger;
 
 /**
@@ -41,7 +61,10 @@ public class Main {
     private static DhcpOptionConverter converter;
     private static List<String> networks;
     private static List<String> gateways;
+    private static RouteList fileRoutes;
     private static Map<String, RouterDeviceConfig> routerDeviceConfigs;
+    private static NetconfSessionPool sessionPool;
+    private static final HostResolver hostResolver = new HostResolver(HostResolver.DEFAULT_TTL_SECONDS);
     private static final List<PoolUpdate> updatedPools = new ArrayList<>();
 
     /**
@@ -72,15 +95,19 @@ public class Main {
                 System.err.println("ERROR: --add-default-gateway and --add-default-multi-pool cannot be used together");
                 return;
             }
-            if (parseArguments.getConfigFile() != null && (parseArguments.getAddDefaultMultiPool() != null || parseArguments.getCommonRoutes() != null || parseArguments.getAddDefaultGateway() != null)) {
-                System.err.println("ERROR: --config cannot be used with --add-default-multi-pool, --add-default-gateway, or --common-routes");
+            if (parseArguments.getConfigFile() != null && (parseArguments.getAddDefaultMultiPool() != null || parseArguments.getCommonRoutes() != null || parseArguments.getAddDefaultGateway() != null || parseArguments.getRoutesFile() != null)) {
+                System.err.println("ERROR: --config cannot be used with --add-default-multi-pool, --add-default-gateway, --common-routes, or --routes-file");
+                return;
+            }
+            if (parseArguments.getBatchInput() != null && (parseArguments.getConfigFile() != null || parseArguments.getAddDefaultMultiPool() != null || parseArguments.getCommonRoutes() != null || parseArguments.getAddDefaultGateway() != null || parseArguments.getFromDhcpOptions() != null || parseArguments.getRoutesFile() != null)) {
+                System.err.println("ERROR: --batch cannot be used with --config, --add-default-multi-pool, --add-default-gateway, --common-routes, --routes-file, or --from-dhcp-options");
                 return;
             }
 
             configMap = new HashMap<>();
             globalConfig = new GlobalConfig();
             routers = new ArrayList<>();
-            routerDeviceConfigs = new HashMap<>();
+            routerDeviceConfigs = new ConcurrentHashMap<>();
 
             // Collect networks and gateways from all sources
             networks = new ArrayList<>();
@@ -99,17 +126,23 @@ public class Main {
                 }
             }
 
-            // Process --add-default-gateway (processed after common-routes)
-            if (parseArguments.getAddDefaultGateway() != null) {
-                networks.add("0.0.0.0/0");
-                gateways.add(parseArguments.getAddDefaultGateway());
+            // Process --routes-file (appended after common-routes and default gateway)
+            if (parseArguments.getRoutesFile() != null) {
+                try {
+                    fileRoutes = new RouteFileReader(parseArguments).read(Paths.get(parseArguments.getRoutesFile()));
+                } catch (IOException e) {
+                    System.err.println("ERROR: Failed to read --routes-file " + parseArguments.getRoutesFile() + ": " + e.getMessage());
+                    return;
+                }
             }
 
-            if (parseArguments.getConfigFile() != null) {
+            if (parseArguments.getBatchInput() != null) {
+                proceedBatch();
+            } else if (parseArguments.getConfigFile() != null) {
                 proceedConfigFile();
             } else if (parseArguments.getAddDefaultMultiPool() != null) {
                 proceedAddDefaultMultiPool();
-            } else if (!networks.isEmpty()) {
+            } else if (!networks.isEmpty() || parseArguments.getAddDefaultGateway() != null || (fileRoutes != null && !fileRoutes.isEmpty())) {
                 proceedEmpty();
             } else if (parseArguments.getFromDhcpOptions() != null) {
                 proceedFromDhcpOptions();
@@ -127,13 +160,16 @@ public class Main {
      *
      * @param dhcpOptions List of DHCP option strings.
      * @param configArguments Argument parseArguments with command-line options.
-     * @param converter DHCP option converter instance.
+     * @param hasDefaultRoute True if any converted pool had 0.0.0.0/0.
      */
-    private static void outputOptions(List<String> dhcpOptions, ArgumentParser configArguments, DhcpOptionConverter converter) {
+    private static void outputOptions(List<String> dhcpOptions, ArgumentParser configArguments, boolean hasDefaultRoute) {
         String output = new OutputFormatter().format(dhcpOptions);
         System.out.println(output);
+        warnNoDefaultRoute(configArguments, hasDefaultRoute);
+    }
 
-        if (!configArguments.isWithoutWarnNoDefaultRoute() && !converter.hasDefaultRoute()) {
+    private static void warnNoDefaultRoute(ArgumentParser configArguments, boolean hasDefaultRoute) {
+        if (!configArguments.isWithoutWarnNoDefaultRoute() && !hasDefaultRoute) {
             System.err.println("Warning: No default route (0.0.0.0/0) specified in option 121. "
                     + "Clients like MikroTik may ignore option 3 (Router) per RFC 3442, causing loss of Internet access.");
         }
@@ -156,17 +192,60 @@ public class Main {
                 return;
             }
 
-            // Отримання конфігурацій через NETCONF, якщо задано --read
-            if (parseArguments.isNetconfRead() && globalConfig.getApplyMethod() == ApplyMethod.NETCONF) {
-                fetchRemoteConfigs(routers, routerDeviceConfigs, parseArguments, globalConfig);
+            if (parseArguments.isApplyConfig() && globalConfig.getApplyMethod() != ApplyMethod.NETCONF) {
+                logError("--apply-config requires 'apply-method: NETCONF' in the global configuration");
+                return;
             }
 
-            // Порівняння та оновлення пулів
-            compareAndUpdatePools(routers, routerDeviceConfigs, parseArguments);
+            converter = new DhcpOptionConverter(parseArguments);
+            boolean netconf = globalConfig.getApplyMethod() == ApplyMethod.NETCONF
+                    && (parseArguments.isNetconfRead() || parseArguments.isApplyConfig());
+            if (netconf) {
+                // Криптопровайдери і налаштування SSH готуються до першого роутера
+                SshClientFactory.shared(parseArguments);
+            }
+            boolean hasDefaultRoute;
+            List<String> dhcpOptions = new ArrayList<>();
+            boolean pipeline = parseArguments.isNetconfRead() && globalConfig.getApplyMethod() == ApplyMethod.NETCONF;
+            if (pipeline) {
+                // Конвеєр --read: опції кожного роутера виводяться одразу після його обробки.
+                // З --apply-config читання і застосування роутера йдуть через одну NETCONF-сесію
+                if (parseArguments.isApplyConfig()) {
+                    sessionPool = new NetconfSessionPool(parseArguments.getMaxConcurrentSessions(),
+                            NetconfSessionPool.DEFAULT_IDLE_TTL_SECONDS);
+                }
+                try {
+                    hasDefaultRoute = runReadPipeline(routers, routerDeviceConfigs, parseArguments, globalConfig);
+                } finally {
+                    closeSessionPool(parseArguments);
+                }
+            } else {
+                // Порівняння та оновлення пулів
+                hasDefaultRoute = compareAndUpdatePools(routers, routerDeviceConfigs, parseArguments);
 
-            // Генерація та вивід DHCP опцій
-            List<String> dhcpOptions = generateDhcpOptions(routers, parseArguments);
-            outputOptions(dhcpOptions, parseArguments, converter);
+                // Генерація DHCP опцій
+                List<PoolJob> jobs = collectPoolJobs(routers, parseArguments);
+                List<ConversionResult> results = renderPools(jobs, parseArguments);
+                for (ConversionResult result : results) {
+                    dhcpOptions.addAll(result.getOptions());
+                    hasDefaultRoute |= result.hasDefaultRoute();
+                }
+                if (parseArguments.isApplyConfig()) {
+                    applyPoolJobs(jobs, results, parseArguments, globalConfig);
+                }
+            }
+            if (netconf) {
+                logHandshakeStats(SshClientFactory.shared(parseArguments), parseArguments);
+                BastionTunnels.shared().close();
+            }
+            logCacheStats("Encode cache", converter.getEncodeCache(), parseArguments);
+            logCacheStats("Append-routes cache", converter.getAppendCache(), parseArguments);
+            if (pipeline) {
+                // Опції вже виведено конвеєром
+                warnNoDefaultRoute(parseArguments, hasDefaultRoute);
+            } else {
+                outputOptions(dhcpOptions, parseArguments, hasDefaultRoute);
+            }
         } catch (Exception e) {
             logError("Failed to load config: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
             if (parseArguments.isDebug()) {
@@ -259,36 +338,417 @@ public class Main {
     }
 
     /**
-     * Fetches remote pool configurations via NETCONF for all routers.
+     * Runs --read as a pipeline. Routers are fetched on virtual threads, with
+     * at most --max-concurrent-sessions NETCONF sessions open at a time. Each
+     * response is parsed, compared with YAML and rendered by --parallelism
+     * workers as soon as it arrives. The options of a finished router are
+     * printed as soon as all routers before it in YAML are printed, so the
+     * output does not depend on which router answers first. With
+     * --apply-config each router's changes are then committed on its own
+     * virtual thread, still counted against --max-concurrent-sessions.
+     * Bounded queues between the stages hold fetching back when parsing or
+     * output falls behind.
      *
      * @param routers List of router configurations.
-     * @param routerDeviceConfigs Map to store router device configurations.
-     * @param configArguments Argument parseArguments for debug logging.
+     * @param routerDeviceConfigs Thread-safe map to store router device
+     * configurations.
+     * @param configArguments Argument parseArguments with command-line options.
      * @param globalConfig Global configuration for credentials and apply
      * method.
+     * @return True if any router has a default route.
+     * @throws InterruptedException If the main thread is interrupted; the
+     * stages are stopped.
      */
-    private static void fetchRemoteConfigs(List<RouterConfig> routers, Map<String, RouterDeviceConfig> routerDeviceConfigs, ArgumentParser configArguments, GlobalConfig globalConfig) {
+    private static boolean runReadPipeline(List<RouterConfig> routers, Map<String, RouterDeviceConfig> routerDeviceConfigs,
+            ArgumentParser configArguments, GlobalConfig globalConfig) throws InterruptedException {
+        List<RouterConfig> named = new ArrayList<>(routers.size());
         for (RouterConfig router : routers) {
             if (router.getName() == null) {
                 logError("Router name is null in YAML configuration");
                 continue;
             }
-            RouterDeviceConfig deviceConfig = new RouterDeviceConfig(
-                    router.getName(),
-                    globalConfig.getUsername() != null ? globalConfig.getUsername() : "",
-                    globalConfig.getPassword() != null ? globalConfig.getPassword() : "",
-                    globalConfig.getApplyMethod()
-            );
-            routerDeviceConfigs.put(router.getName(), deviceConfig);
+            named.add(router);
+        }
+        if (named.isEmpty()) {
+            return false;
+        }
+
+        resolveRouterHosts(named, configArguments, globalConfig);
+        int capacity = configArguments.getMaxConcurrentSessions();
+        BlockingQueue<FetchedRouter> responses = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<RenderedRouter> rendered = new ArrayBlockingQueue<>(capacity);
+        Semaphore sessions = new Semaphore(capacity);
+        // Кожен обробник бере відповіді, доки не оброблено всі роутери
+        AtomicInteger pending = new AtomicInteger(named.size());
+        int workers = Math.min(configArguments.getParallelism(), named.size());
+        long started = System.nanoTime();
+        boolean hasDefaultRoute = false;
+
+        // Застосування закривається останнім: обробники вже передали йому всі роутери
+        try (ExecutorService appliers = Executors.newVirtualThreadPerTaskExecutor();
+                ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor();
+                ExecutorService processors = Executors.newFixedThreadPool(workers)) {
+            try {
+                for (int i = 0; i < named.size(); i++) {
+                    int index = i;
+                    RouterConfig router = named.get(i);
+                    fetchers.submit(() -> {
+                        // Кожен роутер має дійти до обробників, інакше конвеєр чекатиме вічно
+                        FetchedRouter fetched;
+                        try {
+                            fetched = fetchRouter(index, router, configArguments, globalConfig, sessions);
+                        } catch (RuntimeException | Error e) {
+                            logError("Failed to fetch configuration from router " + router.getName() + ": "
+                                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+                            fetched = new FetchedRouter(index, router, null, null, null, null);
+                        }
+                        responses.put(fetched);
+                        return null;
+                    });
+                }
+                for (int i = 0; i < workers; i++) {
+                    processors.submit(() -> {
+                        while (pending.getAndDecrement() > 0) {
+                            FetchedRouter fetched = responses.take();
+                            RenderedRouter result;
+                            try {
+                                result = processRouter(fetched, routerDeviceConfigs, configArguments);
+                            } catch (RuntimeException | Error e) {
+                                logError("Failed to process configuration of router " + fetched.router.getName() + ": "
+                                        + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+                                result = new RenderedRouter(fetched.index, new ArrayList<>(), false, null);
+                            }
+                            if (fetched.session != null) {
+                                // Коміт триває секунди: він іде окремим віртуальним потоком, а не займає обробника
+                                OptionChangePlan plan = result.plan;
+                                appliers.submit(() -> applyFetched(fetched, plan, configArguments));
+                            }
+                            rendered.put(result);
+                        }
+                        return null;
+                    });
+                }
+                // Роутери, що завершилися раніше за попередніх у YAML, чекають своєї черги
+                RenderedRouter[] finished = new RenderedRouter[named.size()];
+                int next = 0;
+                for (int i = 0; i < named.size(); i++) {
+                    RenderedRouter done = rendered.take();
+                    finished[done.index] = done;
+                    for (; next < finished.length && finished[next] != null; next++) {
+                        RenderedRouter router = finished[next];
+                        finished[next] = null;
+                        for (ConversionResult result : router.results) {
+                            result.printMessages(System.err);
+                            for (String option : result.getOptions()) {
+                                System.out.println(option);
+                            }
+                            hasDefaultRoute |= result.hasDefaultRoute();
+                        }
+                        hasDefaultRoute |= router.hasDefaultRoute;
+                    }
+                    System.out.flush();
+                }
+            } catch (InterruptedException e) {
+                fetchers.shutdownNow();
+                processors.shutdownNow();
+                appliers.shutdownNow();
+                throw e;
+            }
+        }
+        logDebug("Processed " + named.size() + " router(s) in " + (System.nanoTime() - started) / 1_000_000
+                + " ms with up to " + capacity + " concurrent session(s) and " + workers + " worker(s)", configArguments);
+        return hasDefaultRoute;
+    }
+
+    /**
+     * Fetch stage: reads the pool configuration of one router. A failed
+     * fetch is logged and yields a null response, so the router still reaches
+     * the next stage. With --apply-config the session stays open for the
+     * apply step and keeps its permit until then.
+     *
+     * @param index Position of the router in YAML.
+     * @param router Router configuration.
+     * @param configArguments Argument parseArguments for debug logging.
+     * @param globalConfig Global configuration for credentials.
+     * @param sessions Limits the number of open NETCONF sessions.
+     * @return Raw response, or a null response if the router failed.
+     * @throws InterruptedException If interrupted while waiting for a session.
+     */
+    private static FetchedRouter fetchRouter(int index, RouterConfig router, ArgumentParser configArguments, GlobalConfig globalConfig,
+            Semaphore sessions) throws InterruptedException {
+        RouterDeviceConfig deviceConfig = newDeviceConfig(router, globalConfig);
+        JUNOS junos = newJunos(globalConfig, configArguments);
+        String responseXml = null;
+        if (!isResolvable(router, deviceConfig)) {
+            return new FetchedRouter(index, router, deviceConfig, junos, null, null);
+        }
+        sessions.acquire();
+        boolean keepSession = false;
+        try {
             if (configArguments.isDebug()) {
                 System.err.println("DEBUG: Processing NETCONF for router: " + router.getName());
             }
-            OutputFormatter formatter = new OutputFormatter();
-            net.ukrcom.dhcprouteconverter.outputFormat.outputFormatInterface of = new JUNOS(
-                    "", globalConfig.getUsername(), globalConfig.getPassword(), ApplyMethod.NETCONF, configArguments
-            );
-            Map<String, PoolDeviceConfig> remotePools = of.getConfig(router.getName(), deviceConfig);
-            deviceConfig.getPools().putAll(remotePools);
+            // --print шукає пули, яких немає в YAML, тому йому потрібні всі пули
+            responseXml = junos.fetchConfig(router.getName(), deviceConfig,
+                    configArguments.isPrintMissingPools() || router.getPools() == null ? null : router.getPools().keySet());
+            // Сесія лишається в пулі до застосування, тож дозвіл теж
+            keepSession = configArguments.isApplyConfig();
+        } catch (RuntimeException e) {
+            logError("Failed to fetch configuration from router " + router.getName() + ": "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        } finally {
+            if (!keepSession) {
+                sessions.release();
+            }
+        }
+        return new FetchedRouter(index, router, deviceConfig, junos, responseXml, keepSession ? sessions : null);
+    }
+
+    /**
+     * Applies rendered pools with --apply-config, one edit-config and one
+     * commit per router. Routers are applied concurrently on virtual threads,
+     * at most --max-concurrent-sessions at a time.
+     *
+     * @param jobs Rendered pool jobs.
+     * @param results Conversion results, in job order.
+     * @param configArguments Argument parseArguments with command-line options.
+     * @param globalConfig Global configuration for credentials.
+     * @throws InterruptedException If interrupted while waiting for the
+     * routers.
+     */
+    private static void applyPoolJobs(List<PoolJob> jobs, List<ConversionResult> results, ArgumentParser configArguments,
+            GlobalConfig globalConfig) throws InterruptedException {
+        Map<RouterConfig, Map<String, RouteSet>> routerPools = new LinkedHashMap<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            RouteSet routes = results.get(i).getRoutes();
+            if (!routes.isEmpty()) {
+                routerPools.computeIfAbsent(jobs.get(i).router, r -> new LinkedHashMap<>()).put(jobs.get(i).poolName, routes);
+            }
+        }
+
+        resolveRouterHosts(routerPools.keySet(), configArguments, globalConfig);
+        Semaphore sessions = new Semaphore(configArguments.getMaxConcurrentSessions());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<RouterConfig, Map<String, RouteSet>> entry : routerPools.entrySet()) {
+                RouterConfig router = entry.getKey();
+                RouterDeviceConfig deviceConfig = newDeviceConfig(router, globalConfig);
+                if (!isResolvable(router, deviceConfig)) {
+                    continue;
+                }
+                executor.submit(() -> {
+                    sessions.acquire();
+                    try {
+                        // Без --read стан роутера невідомий: усі опції додаються
+                        applyRouter(router, deviceConfig,
+                                newJunos(globalConfig, configArguments),
+                                OptionChangePlan.diff(router.getName(), entry.getValue(), null, configArguments.isWithOption249()),
+                                configArguments);
+                    } finally {
+                        sessions.release();
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Applies the option changes of one router in a single commit. An empty
+     * plan sends nothing to the router.
+     *
+     * @param router Router configuration.
+     * @param deviceConfig Credentials of the router.
+     * @param junos NETCONF client.
+     * @param plan Option changes of the router's pools.
+     * @param configArguments Argument parseArguments with command-line options.
+     * @return True if the change was committed or there was nothing to apply.
+     */
+    private static boolean applyRouter(RouterConfig router, RouterDeviceConfig deviceConfig, JUNOS junos,
+            OptionChangePlan plan, ArgumentParser configArguments) {
+        if (plan.isEmpty()) {
+            logDebug("Nothing to apply on router " + router.getName(), configArguments);
+            return true;
+        }
+        if (configArguments.isDebug()) {
+            for (OptionChangePlan.Change change : plan.getChanges()) {
+                System.err.println("DEBUG: Router " + router.getName() + ": " + change);
+            }
+        }
+        long started = System.nanoTime();
+        int confirmTimeout = configArguments.getCommitConfirmed();
+        boolean applied = junos.applyPlan(router.getName(), deviceConfig, plan, confirmTimeout);
+        if (applied) {
+            System.err.println("INFO: Applied " + plan.getChanges().size() + " option change(s) in "
+                    + plan.getPoolNames().size() + " pool(s) to router " + router.getName() + " in one "
+                    + (confirmTimeout > 0 ? "commit confirmed (" + confirmTimeout + " s)" : "commit")
+                    + ", " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+        return applied;
+    }
+
+    private static void logHandshakeStats(SshClientFactory ssh, ArgumentParser configArguments) {
+        long handshakes = ssh.getHandshakes();
+        if (handshakes > 0) {
+            int bastions = BastionTunnels.shared().getConnections();
+            logDebug("SSH handshakes: " + handshakes + (bastions > 0 ? " (" + bastions + " to bastions)" : "")
+                    + ", average " + ssh.getHandshakeNanos() / handshakes / 1_000_000
+                    + " ms, max " + ssh.getMaxHandshakeNanos() / 1_000_000 + " ms", configArguments);
+        }
+    }
+
+    private static JUNOS newJunos(GlobalConfig globalConfig, ArgumentParser configArguments) {
+        JUNOS junos = new JUNOS("", globalConfig.getUsername(), globalConfig.getPassword(), ApplyMethod.NETCONF, configArguments);
+        junos.setSessionPool(sessionPool);
+        return junos;
+    }
+
+    private static void closeSessionPool(ArgumentParser configArguments) {
+        if (sessionPool == null) {
+            return;
+        }
+        sessionPool.close();
+        logDebug("NETCONF sessions: " + sessionPool.getOpened() + " opened, " + sessionPool.getReused() + " reused", configArguments);
+        sessionPool = null;
+    }
+
+    private static RouterDeviceConfig newDeviceConfig(RouterConfig router, GlobalConfig globalConfig) {
+        RouterDeviceConfig deviceConfig = new RouterDeviceConfig(
+                router.getName(),
+                globalConfig.getUsername() != null ? globalConfig.getUsername() : "",
+                globalConfig.getPassword() != null ? globalConfig.getPassword() : "",
+                globalConfig.getApplyMethod()
+        );
+        if (router.getBastion() != null) {
+            deviceConfig.setBastion(router.getBastion());
+        } else if (!router.isDirectConnection()) {
+            deviceConfig.setBastion(globalConfig.getBastion());
+        }
+        deviceConfig.setHostname(routerHost(router, globalConfig));
+        if (deviceConfig.getBastion() == null) {
+            java.net.InetAddress address = hostResolver.lookup(deviceConfig.getHostname());
+            if (address != null) {
+                deviceConfig.setAddress(address.getHostAddress());
+            }
+        }
+        return deviceConfig;
+    }
+
+    private static String routerHost(RouterConfig router, GlobalConfig globalConfig) {
+        return router.getHost() != null ? router.getHost() : router.getName() + globalConfig.getDomainSuffix();
+    }
+
+    /**
+     * Resolves the host names of directly reached routers concurrently,
+     * before any of them is contacted. Routers behind a bastion are resolved
+     * by the bastion.
+     *
+     * @param routers Routers about to be contacted.
+     * @param configArguments Argument parseArguments with command-line options.
+     * @param globalConfig Global configuration for the domain suffix and the
+     * bastion.
+     * @throws InterruptedException If interrupted while waiting for the
+     * resolver.
+     */
+    private static void resolveRouterHosts(Collection<RouterConfig> routers, ArgumentParser configArguments,
+            GlobalConfig globalConfig) throws InterruptedException {
+        List<String> hosts = new ArrayList<>(routers.size());
+        for (RouterConfig router : routers) {
+            boolean direct = router.getBastion() == null && (router.isDirectConnection() || globalConfig.getBastion() == null);
+            if (direct) {
+                hosts.add(routerHost(router, globalConfig));
+            }
+        }
+        long started = System.nanoTime();
+        int resolved = hostResolver.resolveAll(hosts, configArguments.getMaxConcurrentSessions(),
+                configArguments.getNetconfTimeout() * 1000);
+        if (resolved > 0) {
+            logDebug("Resolved " + resolved + " router host name(s) in " + (System.nanoTime() - started) / 1_000_000 + " ms",
+                    configArguments);
+        }
+    }
+
+    private static boolean isResolvable(RouterConfig router, RouterDeviceConfig deviceConfig) {
+        if (deviceConfig.getBastion() != null) {
+            return true;
+        }
+        String failure = hostResolver.getFailure(deviceConfig.getHostname());
+        if (failure != null) {
+            logError("Cannot resolve host " + deviceConfig.getHostname() + " of router " + router.getName() + ": " + failure);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse, diff and render stage for one router.
+     *
+     * @param fetched Output of the fetch stage; without a device
+     * configuration if that stage failed.
+     * @param routerDeviceConfigs Thread-safe map to store router device
+     * configurations.
+     * @param configArguments Argument parseArguments with command-line options.
+     * @return Options of the pools that need an update.
+     */
+    private static RenderedRouter processRouter(FetchedRouter fetched, Map<String, RouterDeviceConfig> routerDeviceConfigs,
+            ArgumentParser configArguments) {
+        RouterConfig router = fetched.router;
+        List<ConversionResult> results = new ArrayList<>();
+        boolean hasDefaultRoute = false;
+        OptionChangePlan plan = null;
+        if (fetched.deviceConfig == null) {
+            // Роутер не дійшов навіть до читання, помилку вже виведено
+            return new RenderedRouter(fetched.index, results, false, null);
+        }
+        try {
+            if (fetched.responseXml != null) {
+                fetched.deviceConfig.getPools().putAll(fetched.junos.parseConfig(fetched.responseXml, router.getName()));
+            }
+            routerDeviceConfigs.put(router.getName(), fetched.deviceConfig);
+
+            List<PoolUpdate> updates = new ArrayList<>();
+            hasDefaultRoute = compareRouterPools(router, fetched.deviceConfig, configArguments, updates);
+            Map<String, RouteSet> desired = new LinkedHashMap<>();
+            for (PoolUpdate update : updates) {
+                ConversionResult result = generatePoolDhcpOptions(converter, router, router.getPools().get(update.poolName),
+                        update.poolName, configArguments);
+                results.add(result);
+                desired.put(update.poolName, result.getRoutes());
+            }
+            if (configArguments.isApplyConfig()) {
+                plan = OptionChangePlan.diff(router.getName(), desired, fetched.deviceConfig.getPools(),
+                        configArguments.isWithOption249());
+            }
+            synchronized (updatedPools) {
+                updatedPools.addAll(updates);
+            }
+        } catch (RuntimeException e) {
+            logError("Failed to process configuration of router " + router.getName() + ": "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        }
+        return new RenderedRouter(fetched.index, results, hasDefaultRoute, plan);
+    }
+
+    /**
+     * Apply stage for one router of the --read pipeline: commits its plan,
+     * then closes the router's pooled session and returns its session permit.
+     *
+     * @param fetched Output of the fetch stage, holding a session permit.
+     * @param plan Option changes of the router, or null if it could not be
+     * processed.
+     * @param configArguments Argument parseArguments with command-line options.
+     */
+    private static void applyFetched(FetchedRouter fetched, OptionChangePlan plan, ArgumentParser configArguments) {
+        try {
+            if (plan != null) {
+                applyRouter(fetched.router, fetched.deviceConfig, fetched.junos, plan, configArguments);
+            }
+        } catch (RuntimeException e) {
+            logError("Failed to apply configuration to router " + fetched.router.getName() + ": "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        } finally {
+            // Застосування було останнім зверненням до роутера
+            fetched.junos.closeIdleSession(fetched.router.getName(), fetched.deviceConfig);
+            fetched.session.release();
         }
     }
 
@@ -298,9 +758,10 @@ public class Main {
      * @param routers List of router configurations.
      * @param routerDeviceConfigs Map of router device configurations.
      * @param configArguments Argument parseArguments for debug logging.
+     * @return True if any compared pool has a default gateway in YAML or on
+     * the router.
      */
-    private static void compareAndUpdatePools(List<RouterConfig> routers, Map<String, RouterDeviceConfig> routerDeviceConfigs, ArgumentParser configArguments) {
-        converter = new DhcpOptionConverter(configArguments);
+    private static boolean compareAndUpdatePools(List<RouterConfig> routers, Map<String, RouterDeviceConfig> routerDeviceConfigs, ArgumentParser configArguments) {
         boolean hasDefaultRoute = false; // Локальна змінна для відстеження дефолтного маршруту
 
         for (RouterConfig router : routers) {
@@ -308,120 +769,113 @@ public class Main {
             if (deviceConfig == null) {
                 continue;
             }
-            for (String poolName : deviceConfig.getPools().keySet()) {
-                PoolDeviceConfig remotePool = deviceConfig.getPools().get(poolName);
-                if (remotePool == null) {
-                    if (configArguments.isDebug()) {
-                        System.err.println("DEBUG: Remote pool " + poolName + " is null for router " + router.getName());
-                    }
-                    continue;
+            hasDefaultRoute |= compareRouterPools(router, deviceConfig, configArguments, updatedPools);
+        }
+
+        return hasDefaultRoute;
+    }
+
+    /**
+     * Compares the pools of one router with its NETCONF configuration.
+     *
+     * @param router Router configuration from YAML.
+     * @param deviceConfig Pools fetched from the router.
+     * @param configArguments Argument parseArguments for debug logging.
+     * @param updates Receives the pools that need an update.
+     * @return True if any compared pool has a default gateway in YAML or on
+     * the router.
+     */
+    private static boolean compareRouterPools(RouterConfig router, RouterDeviceConfig deviceConfig, ArgumentParser configArguments,
+            List<PoolUpdate> updates) {
+        boolean hasDefaultRoute = false;
+        for (String poolName : deviceConfig.getPools().keySet()) {
+            PoolDeviceConfig remotePool = deviceConfig.getPools().get(poolName);
+            if (remotePool == null) {
+                if (configArguments.isDebug()) {
+                    System.err.println("DEBUG: Remote pool " + poolName + " is null for router " + router.getName());
                 }
-                if (router.getPools().containsKey(poolName)) {
-                    PoolConfig yamlPool = router.getPools().get(poolName);
-                    String yamlGateway = yamlPool.getDefaultGateway();
-                    String remoteGateway = remotePool.getDefaultGateway();
-                    String remoteOption121 = remotePool.getOption121();
-
-                    // Перевіряємо наявність default-gateway для встановлення hasDefaultRoute
-                    if (yamlGateway != null || remoteGateway != null) {
-                        hasDefaultRoute = true;
-                    }
+                continue;
+            }
+            if (router.getPools().containsKey(poolName)) {
+                PoolConfig yamlPool = router.getPools().get(poolName);
+                String yamlGateway = yamlPool.getDefaultGateway();
+                String remoteGateway = remotePool.getDefaultGateway();
+                String remoteOption121 = remotePool.getOption121();
 
-                    // Генерація option 121 для YAML-пулу
-                    List<String> poolNetworks = new ArrayList<>();
-                    List<String> poolGateways = new ArrayList<>();
-                    if (yamlPool.getDefaultGateway() != null) {
-                        poolNetworks.add("0.0.0.0/0");
-                        poolGateways.add(yamlPool.getDefaultGateway());
-                    }
-                    if (yamlPool.getCommonRoutes() != null) {
-                        for (Map<String, String> route : yamlPool.getCommonRoutes()) {
-                            if (route != null && route.get("network") != null && route.get("gateway") != null) {
-                                poolNetworks.add(route.get("network"));
-                                poolGateways.add(route.get("gateway"));
-                            }
-                        }
-                    }
-                    if (!yamlPool.isDisableAppendRoutes() && !router.isDisableAppendRoutes() && globalConfig.getAppendRoutes() != null) {
-                        for (Map<String, String> route : globalConfig.getAppendRoutes()) {
-                            if (route != null && route.get("network") != null && route.get("gateway") != null) {
-                                poolNetworks.add(route.get("network"));
-                                poolGateways.add(route.get("gateway"));
-                            }
-                        }
-                    }
-                    String yamlOption121 = "";
-                    if (!poolNetworks.isEmpty()) {
-                        List<String> dhcpOptions = converter.generateDhcpOptions(poolNetworks, poolGateways, configArguments.isWithWarningLoopback(),
-                                DhcpOptionConverter.Format.JUNOS, poolName, null);
-                        for (String option : dhcpOptions) {
-                            if (option.contains("option 121 hex-string")) {
-                                yamlOption121 = option.replaceAll(".*option 121 hex-string (\\w+).*", "$1");
-                                break;
-                            }
-                        }
+                // Перевіряємо наявність default-gateway для встановлення hasDefaultRoute
+                if (yamlGateway != null || remoteGateway != null) {
+                    hasDefaultRoute = true;
+                }
+
+                // Генерація option 121 для YAML-пулу
+                RouteList poolRoutes = collectPoolRoutes(converter, router, yamlPool, poolName, configArguments);
+                RouteSegment appendRoutes = appendSegment(router, yamlPool);
+                ConversionResult yamlResult = ConversionResult.EMPTY;
+                if (!poolRoutes.isEmpty() || !appendRoutes.isEmpty()) {
+                    // Для порівняння потрібні лише маршрути, текст опцій не будується
+                    yamlResult = converter.generateRoutes(poolRoutes, appendRoutes, configArguments.isWithOption249(), poolName);
+                }
+                RouteSet yamlOption121 = yamlResult.getRoutes();
+                String yamlHex = yamlOption121.isEmpty() ? "empty" : yamlOption121.toHex();
+                if (configArguments.isDebug()) {
+                    System.err.println("DEBUG: Pool " + poolName + " on router " + router.getName() + ":");
+                    System.err.println("  YAML default-gateway: " + (yamlGateway != null ? yamlGateway : "null"));
+                    System.err.println("  Remote default-gateway: " + (remoteGateway != null ? remoteGateway : "null"));
+                    System.err.println("  YAML option 121: " + yamlHex);
+                    System.err.println("  Remote option 121: " + (remoteOption121 != null ? remoteOption121 : "null"));
+                }
+                boolean gatewayMismatch = false;
+                if (remoteGateway != null && !remoteGateway.isEmpty()) {
+                    if (yamlGateway == null || !remoteGateway.equals(yamlGateway)) {
+                        gatewayMismatch = true;
                     }
+                } else {
+                    logWarning("Pool " + poolName + " on router " + router.getName() + " has no default-gateway in NETCONF response", configArguments);
+                }
+                // Порівнюємо маршрути: регістр, пробіли і порядок у значенні з роутера не важливі
+                boolean option121Mismatch = !OptionChangePlan.matches(yamlOption121, remoteOption121);
+                if (!option121Mismatch && configArguments.isWithOption249()
+                        && !OptionChangePlan.matches(yamlOption121, remotePool.getOption249())) {
+                    logWarning("Pool " + poolName + " on router " + router.getName() + ": option 249 mismatch, updating to "
+                            + yamlHex, configArguments);
+                    option121Mismatch = true;
+                }
+                if (option121Mismatch) {
+                    logWarning("Pool " + poolName + " on router " + router.getName() + ": option 121 mismatch, updating from "
+                            + yamlHex + " to " + (remoteOption121 != null ? remoteOption121 : "empty"), configArguments);
+                }
+                if (gatewayMismatch || option121Mismatch) {
                     if (configArguments.isDebug()) {
-                        System.err.println("DEBUG: Pool " + poolName + " on router " + router.getName() + ":");
-                        System.err.println("  YAML default-gateway: " + (yamlGateway != null ? yamlGateway : "null"));
-                        System.err.println("  Remote default-gateway: " + (remoteGateway != null ? remoteGateway : "null"));
-                        System.err.println("  YAML option 121: " + (yamlOption121.isEmpty() ? "empty" : yamlOption121));
-                        System.err.println("  Remote option 121: " + (remoteOption121 != null ? remoteOption121 : "null"));
+                        System.err.println("INFO: Proposed update for pool " + poolName + " on router " + router.getName() + ":");
                     }
-                    boolean gatewayMismatch = false;
-                    if (remoteGateway != null && !remoteGateway.isEmpty()) {
-                        if (yamlGateway == null || !remoteGateway.equals(yamlGateway)) {
-                            gatewayMismatch = true;
-                        }
-                    } else {
-                        logWarning("Pool " + poolName + " on router " + router.getName() + " has no default-gateway in NETCONF response", configArguments);
+                    if (gatewayMismatch) {
+                        logWarning("Pool " + poolName + " on router " + router.getName() + ": default-gateway mismatch, updating from "
+                                + (yamlGateway != null ? yamlGateway : "null") + " to " + remoteGateway, configArguments);
+                        yamlPool.setDefaultGateway(remoteGateway);
                     }
-                    boolean option121Mismatch = (remoteOption121 != null && !remoteOption121.isEmpty() && !remoteOption121.equals(yamlOption121))
-                            || (!yamlOption121.isEmpty() && (remoteOption121 == null || remoteOption121.isEmpty()));
-                    if (option121Mismatch) {
-                        logWarning("Pool " + poolName + " on router " + router.getName() + ": option 121 mismatch, updating from "
-                                + (yamlOption121.isEmpty() ? "empty" : yamlOption121) + " to " + (remoteOption121 != null ? remoteOption121 : "empty"), configArguments);
+                    if (option121Mismatch && configArguments.isDebug()) {
+                        System.err.println("  option 121 from " + yamlHex + " to " + (remoteOption121 != null ? remoteOption121 : "empty"));
                     }
-                    if (gatewayMismatch || option121Mismatch) {
-                        if (configArguments.isDebug()) {
-                            System.err.println("INFO: Proposed update for pool " + poolName + " on router " + router.getName() + ":");
-                        }
-                        if (gatewayMismatch) {
-                            logWarning("Pool " + poolName + " on router " + router.getName() + ": default-gateway mismatch, updating from "
-                                    + (yamlGateway != null ? yamlGateway : "null") + " to " + remoteGateway, configArguments);
-                            yamlPool.setDefaultGateway(remoteGateway);
-                        }
-                        if (option121Mismatch && configArguments.isDebug()) {
-                            System.err.println("  option 121 from " + (yamlOption121.isEmpty() ? "empty" : yamlOption121) + " to " + (remoteOption121 != null ? remoteOption121 : "empty"));
-                        }
-                        deviceConfig.addPool(poolName, remotePool);
-                        updatedPools.add(new PoolUpdate(router.getName(), poolName));
-                    } else if (configArguments.isDebug()) {
+                    deviceConfig.addPool(poolName, remotePool);
+                    updates.add(new PoolUpdate(router.getName(), poolName));
+                } else {
+                    // Пули з оновленням виводять ці повідомлення під час генерації опцій
+                    yamlResult.printMessages(System.err);
+                    if (configArguments.isDebug()) {
                         System.err.println("DEBUG: No changes needed for pool " + poolName + " on router " + router.getName() + ": configurations match");
                     }
-                } else {
-                    logWarning("Pool " + poolName + " on router " + router.getName()
-                            + " is not defined in configuration file " + configArguments.getConfigFile(), configArguments);
                 }
+            } else {
+                logWarning("Pool " + poolName + " on router " + router.getName()
+                        + " is not defined in configuration file " + configArguments.getConfigFile(), configArguments);
             }
         }
-
-        // Встановлюємо hasDefaultRoute у converter після перевірки всіх пулів
-        if (hasDefaultRoute) {
-            try {
-                // Використовуємо рефлексію для встановлення приватного поля hasDefaultRoute
-                java.lang.reflect.Field field = DhcpOptionConverter.class.getDeclaredField("hasDefaultRoute");
-                field.setAccessible(true);
-                field.set(converter, true);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                logError("Failed to set hasDefaultRoute: " + e.getMessage());
-            }
-        }
+        return hasDefaultRoute;
     }
 
-    private static List<String> generateDhcpOptions(List<RouterConfig> routers, ArgumentParser configArguments) {
+    private static List<PoolJob> collectPoolJobs(List<RouterConfig> routers, ArgumentParser configArguments) {
         //converter = new DhcpOptionConverter(parseArguments);
-        List<String> dhcpOptions = new ArrayList<>();
+        List<PoolJob> jobs = new ArrayList<>();
 
         if (configArguments.isNetconfRead()) {
             if (updatedPools != null && !updatedPools.isEmpty()) {
@@ -449,7 +903,7 @@ public class Main {
                         logError("Pool " + update.poolName + " not found in router " + update.routerName);
                         continue;
                     }
-                    dhcpOptions.addAll(generatePoolDhcpOptions(router, pool, update.poolName, configArguments));
+                    jobs.add(new PoolJob(router, pool, update.poolName));
                 }
             }
         } else {
@@ -466,53 +920,113 @@ public class Main {
                             logError("Pool config is null for pool " + poolName + " on router " + router.getName());
                             continue;
                         }
-                        dhcpOptions.addAll(generatePoolDhcpOptions(router, pool, poolName, configArguments));
+                        jobs.add(new PoolJob(router, pool, poolName));
                     }
                 }
             }
         }
-        return dhcpOptions;
+        return jobs;
+    }
+
+    /**
+     * Generates options for every pool job. With --parallelism=N above 1 the
+     * jobs run on a fork-join pool of N threads sharing one converter; results
+     * are joined back and their messages printed in job (YAML) order.
+     *
+     * @param jobs Pools to render, in output order.
+     * @param configArguments Argument parseArguments with command-line options.
+     * @return Conversion results of all pools.
+     */
+    private static List<ConversionResult> renderPools(List<PoolJob> jobs, ArgumentParser configArguments) {
+        List<ConversionResult> results = new ArrayList<>(jobs.size());
+        int parallelism = configArguments.getParallelism();
+        if (parallelism <= 1 || jobs.size() <= 1) {
+            for (PoolJob job : jobs) {
+                ConversionResult result = generatePoolDhcpOptions(converter, job.router, job.pool, job.poolName, configArguments);
+                result.printMessages(System.err);
+                results.add(result);
+            }
+            return results;
+        }
+
+        ForkJoinPool executor = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<ConversionResult>> tasks = new ArrayList<>(jobs.size());
+            for (PoolJob job : jobs) {
+                tasks.add(executor.submit(
+                        () -> generatePoolDhcpOptions(converter, job.router, job.pool, job.poolName, configArguments)));
+            }
+            for (ForkJoinTask<ConversionResult> task : tasks) {
+                ConversionResult result = task.join();
+                result.printMessages(System.err);
+                results.add(result);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        logDebug("Rendered " + jobs.size() + " pool(s) on " + parallelism + " thread(s)", configArguments);
+        return results;
     }
 
-    private static List<String> generatePoolDhcpOptions(RouterConfig router, PoolConfig pool, String poolName, ArgumentParser configArguments) {
-        List<String> poolNetworks = new ArrayList<>();
-        List<String> poolGateways = new ArrayList<>();
+    private static ConversionResult generatePoolDhcpOptions(DhcpOptionConverter converter, RouterConfig router, PoolConfig pool,
+            String poolName, ArgumentParser configArguments) {
+        RouteList poolRoutes = collectPoolRoutes(converter, router, pool, poolName, configArguments);
+        RouteSegment appendRoutes = appendSegment(router, pool);
 
+        if (poolRoutes.isEmpty() && appendRoutes.isEmpty()) {
+            return ConversionResult.EMPTY;
+        }
+        if (configArguments.isDebug()) {
+            System.err.println("DEBUG: Generating DHCP options for pool " + poolName + " on router " + router.getName() + ": "
+                    + poolRoutes.size() + " pool route(s), " + appendRoutes.size() + " append route(s)");
+        }
+        return converter.generateDhcpOptions(poolRoutes, appendRoutes, configArguments.isWithOption249(),
+                DhcpOptionConverter.Format.JUNOS,
+                poolName, null);
+    }
+
+    /**
+     * Collects the default gateway and common routes of a YAML pool, each
+     * tagged with its source so the converter can apply the route priority.
+     * The global append routes are precompiled in {@link GlobalConfig}, see
+     * {@link #appendSegment}.
+     *
+     * @param converter Converter used to parse the routes.
+     * @param router Router the pool belongs to.
+     * @param pool Pool configuration.
+     * @param poolName Pool name.
+     * @param configArguments Argument parseArguments to check debug mode.
+     * @return Parsed routes in default, common order.
+     */
+    private static RouteList collectPoolRoutes(DhcpOptionConverter converter, RouterConfig router, PoolConfig pool,
+            String poolName, ArgumentParser configArguments) {
+        RouteList poolRoutes = new RouteList();
         if (pool.getDefaultGateway() != null) {
-            poolNetworks.add("0.0.0.0/0");
-            poolGateways.add(pool.getDefaultGateway());
+            converter.parseRoute("0.0.0.0/0", pool.getDefaultGateway(), RouteList.Source.DEFAULT_GATEWAY, poolRoutes);
         }
         if (pool.getCommonRoutes() != null) {
             for (Map<String, String> route : pool.getCommonRoutes()) {
                 if (route != null && route.get("network") != null && route.get("gateway") != null) {
-                    poolNetworks.add(route.get("network"));
-                    poolGateways.add(route.get("gateway"));
+                    converter.parseRoute(route.get("network"), route.get("gateway"), RouteList.Source.COMMON, poolRoutes);
                 } else if (configArguments.isDebug()) {
                     System.err.println("DEBUG: Skipping invalid common route for pool " + poolName + " on router " + router.getName());
                 }
             }
         }
-        if (!pool.isDisableAppendRoutes() && !router.isDisableAppendRoutes() && globalConfig.getAppendRoutes() != null) {
-            for (Map<String, String> route : globalConfig.getAppendRoutes()) {
-                if (route != null && route.get("network") != null && route.get("gateway") != null) {
-                    poolNetworks.add(route.get("network"));
-                    poolGateways.add(route.get("gateway"));
-                } else if (configArguments.isDebug()) {
-                    System.err.println("DEBUG: Skipping invalid append route for pool " + poolName + " on router " + router.getName());
-                }
-            }
-        }
+        return poolRoutes;
+    }
 
-        List<String> dhcpOptions = new ArrayList<>();
-        if (!poolNetworks.isEmpty()) {
-            if (configArguments.isDebug()) {
-                System.err.println("DEBUG: Generating DHCP options for pool " + poolName + " on router " + router.getName() + ": networks=" + poolNetworks);
-            }
-            dhcpOptions.addAll(converter.generateDhcpOptions(poolNetworks, poolGateways, configArguments.isWithWarningLoopback(),
-                    DhcpOptionConverter.Format.JUNOS,
-                    poolName, null));
+    /**
+     * @param router Router the pool belongs to.
+     * @param pool Pool configuration.
+     * @return Global append routes, or an empty segment if the pool or router
+     * disables them.
+     */
+    private static RouteSegment appendSegment(RouterConfig router, PoolConfig pool) {
+        if (pool.isDisableAppendRoutes() || router.isDisableAppendRoutes()) {
+            return RouteSegment.EMPTY;
         }
-        return dhcpOptions;
+        return globalConfig.getAppendSegment();
     }
 
     /**
@@ -527,6 +1041,13 @@ public class Main {
         }
     }
 
+    private static void logCacheStats(String name, RouteSetCache cache, ArgumentParser configArguments) {
+        if (cache != null) {
+            logDebug(name + ": " + cache.getHits() + " hit(s), " + cache.getMisses() + " miss(es), "
+                    + cache.size() + " distinct route set(s)", configArguments);
+        }
+    }
+
     /**
      * Utility method for warning logging.
      *
@@ -555,7 +1076,7 @@ public class Main {
     private static void proceedAddDefaultMultiPool() {
         RouterConfig router = new RouterConfig();
         router.setName("default-router");
-        Map<String, PoolConfig> pools = new HashMap<>();
+        Map<String, PoolConfig> pools = new LinkedHashMap<>();
         String[] poolPairs = parseArguments.getAddDefaultMultiPool().split(",");
         for (String poolPair : poolPairs) {
             String[] parts = poolPair.split(":");
@@ -583,28 +1104,34 @@ public class Main {
         routers.add(router);
         converter = new DhcpOptionConverter(null);
         List<String> dhcpOptions = new ArrayList<>();
+        boolean hasDefaultRoute = false;
         for (RouterConfig r : routers) {
             for (Map.Entry<String, PoolConfig> entry : r.getPools().entrySet()) {
                 String poolName = entry.getKey();
                 PoolConfig pool = entry.getValue();
-                List<String> poolNetworks = new ArrayList<>();
-                List<String> poolGateways = new ArrayList<>();
+                RouteList poolRoutes = new RouteList();
                 if (pool.getDefaultGateway() != null) {
-                    poolNetworks.add("0.0.0.0/0");
-                    poolGateways.add(pool.getDefaultGateway());
+                    converter.parseRoute("0.0.0.0/0", pool.getDefaultGateway(), RouteList.Source.DEFAULT_GATEWAY, poolRoutes);
                 }
-                for (Map<String, String> route : pool.getCommonRoutes()) {
-                    poolNetworks.add(route.get("network"));
-                    poolGateways.add(route.get("gateway"));
+                if (pool.getCommonRoutes() != null) {
+                    for (Map<String, String> route : pool.getCommonRoutes()) {
+                        converter.parseRoute(route.get("network"), route.get("gateway"), RouteList.Source.COMMON, poolRoutes);
+                    }
                 }
-                if (!poolNetworks.isEmpty()) {
-                    dhcpOptions.addAll(converter.generateDhcpOptions(poolNetworks, poolGateways, parseArguments.isWithWarningLoopback(),
+                if (fileRoutes != null) {
+                    poolRoutes.addAll(fileRoutes);
+                }
+                if (!poolRoutes.isEmpty()) {
+                    ConversionResult result = converter.generateDhcpOptions(poolRoutes, parseArguments.isWithOption249(),
                             DhcpOptionConverter.Format.JUNOS,
-                            poolName, null));
+                            poolName, null);
+                    result.printMessages(System.err);
+                    dhcpOptions.addAll(result.getOptions());
+                    hasDefaultRoute |= result.hasDefaultRoute();
                 }
             }
         }
-        outputOptions(dhcpOptions, parseArguments, converter);
+        outputOptions(dhcpOptions, parseArguments, hasDefaultRoute);
     }
 
     /**
@@ -612,10 +1139,39 @@ public class Main {
      */
     private static void proceedEmpty() {
         converter = new DhcpOptionConverter(parseArguments);
-        List<String> dhcpOptions = converter.generateDhcpOptions(networks, gateways,
-                parseArguments.isWithWarningLoopback(), DhcpOptionConverter.Format.valueOf(parseArguments.getFormat().toUpperCase()),
+        RouteList routes = converter.parseRoutes(networks, gateways);
+        // --add-default-gateway goes after common routes but wins over them
+        if (parseArguments.getAddDefaultGateway() != null) {
+            converter.parseRoute("0.0.0.0/0", parseArguments.getAddDefaultGateway(), RouteList.Source.DEFAULT_GATEWAY, routes);
+        }
+        if (fileRoutes != null) {
+            routes.addAll(fileRoutes);
+        }
+        ConversionResult result = converter.generateDhcpOptions(routes,
+                parseArguments.isWithOption249(), DhcpOptionConverter.Format.valueOf(parseArguments.getFormat().toUpperCase()),
                 parseArguments.getJunosPoolName(), parseArguments.getCiscoPoolName());
-        outputOptions(dhcpOptions, parseArguments, converter);
+        result.printMessages(System.err);
+        outputOptions(result.getOptions(), parseArguments, result.hasDefaultRoute());
+    }
+
+    /**
+     * Streams route-set records from stdin or a file through the converter.
+     */
+    private static void proceedBatch() {
+        converter = new DhcpOptionConverter(parseArguments);
+        BatchProcessor processor = new BatchProcessor(converter, parseArguments);
+        String input = parseArguments.getBatchInput();
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        try (BufferedReader in = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+            processor.process(in, out);
+        } catch (IOException e) {
+            logError("Failed to process batch input " + input + ": " + e.getMessage());
+        }
+        if (processor.getFailures() > 0) {
+            logError(processor.getFailures() + " of " + processor.getRecords() + " batch record(s) failed");
+        }
     }
 
     /**
@@ -668,7 +1224,8 @@ public class Main {
         System.out.println();
         System.out.println("  --print");
         System.out.println("      Print all warning messages, including those about pools not defined in the YAML configuration file, even if --debug is not enabled.");
-        System.out.println("      Useful for diagnosing configuration mismatches or missing settings.");
+        System.out.println("      Useful for diagnosing configuration mismatches or missing settings. With --read, fetches every pool");
+        System.out.println("      of each router instead of only the pools declared in YAML.");
         System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --print");
         System.out.println();
         System.out.println("  --common-routes=<network1,gateway1,...>");
@@ -676,6 +1233,12 @@ public class Main {
         System.out.println("      --add-default-multi-pool.");
         System.out.println("      Example: DhcpRouteConverter -tdo --junos=r540pool1 --common-routes=192.168.0.0/16,10.0.0.192");
         System.out.println();
+        System.out.println("  --routes-file=<file>");
+        System.out.println("      Read additional routes from a file with one 'network,gateway' pair per line ('#' starts a comment).");
+        System.out.println("      Large files are memory-mapped and parsed in parallel; invalid lines are reported with their line number.");
+        System.out.println("      The routes are appended to those from --common-routes and --add-default-gateway.");
+        System.out.println("      Example: DhcpRouteConverter -tdo --junos=r540pool1 --routes-file=tenant-routes.csv --add-default-gateway=94.176.198.17");
+        System.out.println();
         System.out.println("  --add-default-gateway=<gateway>");
         System.out.println("      Add a default route (0.0.0.0/0) for a single pool. Cannot be used with --add-default-multi-pool.");
         System.out.println("      Example: DhcpRouteConverter -tdo --junos=r540pool1 --add-default-gateway=94.176.198.17");
@@ -692,10 +1255,70 @@ public class Main {
         System.out.println("      Enable warning about gateways in the loopback range (127.0.0.0/8).");
         System.out.println("      Example: DhcpRouteConverter -tdo --junos=r540pool1=10.0.0.0/8,127.0.0.10 --with-warning-loopback");
         System.out.println();
+        System.out.println("  --summarize");
+        System.out.println("      Before encoding, merge each pool's routes (default, common and append routes together): sibling prefixes");
+        System.out.println("      with the same gateway are joined and prefixes covered by a route with the same gateway are dropped.");
+        System.out.println("      The longest-prefix-match result for every address stays the same. Bytes saved are reported per pool.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --summarize");
+        System.out.println();
+        System.out.println("  --max-option-bytes=<bytes>");
+        System.out.println("      Keep each pool's options within <bytes> on the wire (option 121, plus option 249 with --with-option-249,");
+        System.out.println("      including code and length bytes). Routes that do not fit are summarized first; if that is not enough,");
+        System.out.println("      routes are kept by priority (default gateway, common, append), shorter prefixes first, and the");
+        System.out.println("      dropped ones are printed.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --max-option-bytes=255 --with-option-249");
+        System.out.println();
+        System.out.println("  --parallelism=<threads>");
+        System.out.println("      With --config, render pools on <threads> threads (default: 1). Output keeps the YAML order of");
+        System.out.println("      routers and pools.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --parallelism=32");
+        System.out.println();
+        System.out.println("  --max-concurrent-sessions=<sessions>");
+        System.out.println("      With --read, fetch routers concurrently on virtual threads, keeping at most <sessions> NETCONF");
+        System.out.println("      sessions open at a time (default: 32). Each router is compared as soon as it is fetched and printed");
+        System.out.println("      in YAML order; --parallelism sets the number of compare/render workers.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --read --max-concurrent-sessions=64");
+        System.out.println();
+        System.out.println("  --netconf-timeout=<seconds>");
+        System.out.println("      Per-router timeout for the NETCONF connection and for every RPC (default: 60).");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --read --netconf-timeout=20");
+        System.out.println();
+        System.out.println("  --ssh-kex=<algorithms>, --ssh-host-key=<algorithms>");
+        System.out.println("      Comma-separated SSH key exchange and host key algorithms for NETCONF, in order of preference");
+        System.out.println("      (default: curve25519-sha256 and ssh-ed25519 first, NIST ECDH, DH group exchange, ECDSA, RSA after).");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --read --ssh-kex=curve25519-sha256,ecdh-sha2-nistp256");
+        System.out.println();
+        System.out.println("  --apply-config");
+        System.out.println("      With --config and 'apply-method: NETCONF', push the generated options to the routers: all changed pools");
+        System.out.println("      of a router (with --read, the pools that differ; otherwise every pool) go into one edit-config on the");
+        System.out.println("      locked candidate configuration, followed by one commit. With --read, only the options whose routes");
+        System.out.println("      differ are added, replaced or deleted; a router that already matches gets no edit and no commit.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --read --apply-config");
+        System.out.println();
+        System.out.println("  --commit-confirmed=<seconds>");
+        System.out.println("      With --apply-config, commit confirmed: each router rolls the change back after <seconds> unless it");
+        System.out.println("      is confirmed by another commit.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --read --apply-config --commit-confirmed=300");
+        System.out.println();
+        System.out.println("  --snapshot-cache=<dir>");
+        System.out.println("      With --read, keep the last pool configuration of every router in <dir> and reuse it while the");
+        System.out.println("      router's last commit (get-commit-information) is unchanged and the same pools are requested.");
+        System.out.println("      Example: DhcpRouteConverter --config=routers.yaml --read --snapshot-cache=/var/cache/dhcproute");
+        System.out.println();
         System.out.println("  --with-option-249");
         System.out.println("      Include DHCP option 249 in the output alongside option 121 (default: only option 121).");
         System.out.println("      Example: DhcpRouteConverter -tdo --junos=r540pool1=10.0.0.0/8,127.0.0.10 --with-option-249");
         System.out.println();
+        System.out.println("  --batch[=<file>]");
+        System.out.println("      Convert many route sets in one run. Records are read from <file> or, without a file, from stdin,");
+        System.out.println("      one per line, and one result is written per record. A record is either NDJSON, e.g.");
+        System.out.println("        {\"pool\":\"r540pool1\",\"format\":\"junos\",\"routes\":[\"10.0.0.0/8,127.0.0.10\"],\"default-gateway\":\"94.176.198.17\"}");
+        System.out.println("        {\"pool\":\"r540pool1\",\"format\":\"decode\",\"hex\":\"080a7f00000a\"}");
+        System.out.println("      (answered with one NDJSON line), or plain text '<pool> <format> <network1,gateway1,...>' or");
+        System.out.println("      '<pool> decode <hex>' (answered with the usual text lines).");
+        System.out.println("      Formats: default, isc, routeros, junos, cisco, windows, decode.");
+        System.out.println("      Example: DhcpRouteConverter --batch=pools.ndjson --with-option-249");
+        System.out.println();
         System.out.println("  --help, -?");
         System.out.println("      Display this help message.");
         System.out.println();
@@ -705,7 +1328,8 @@ public class Main {
         System.out.println("    2. Common routes (from --common-routes or pool's common-routes).");
         System.out.println("    3. Append routes (from global append-routes in YAML).");
         System.out.println("  - If multiple routes specify the same network, the one with higher priority is used.");
-        System.out.println("  - The --apply-junos option for applying configurations via NETCONF is not yet implemented.");
+        System.out.println("    Exact duplicates are dropped silently; a warning is printed when a route is overridden by one");
+        System.out.println("    with another gateway or when more specific routes cover all of it.");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("  # Convert routes to JunOS format with a default gateway (only option 121)");
@@ -727,6 +1351,59 @@ public class Main {
         System.out.println("  DhcpRouteConverter --config=routers.yaml --with-option-249");
     }
 
+    // Пул роутера, для якого генеруються та застосовуються опції
+    private static class PoolJob {
+
+        final RouterConfig router;
+        final PoolConfig pool;
+        final String poolName;
+
+        PoolJob(RouterConfig router, PoolConfig pool, String poolName) {
+            this.router = router;
+            this.pool = pool;
+            this.poolName = poolName;
+        }
+    }
+
+    // Конфігурація, прочитана з роутера, для обробки в пайплайні
+    private static class FetchedRouter {
+
+        final int index;
+        final RouterConfig router;
+        final RouterDeviceConfig deviceConfig;
+        final JUNOS junos;
+        final String responseXml;
+        // Дозвіл на сесію, яку роутер тримає до застосування, або null
+        final Semaphore session;
+
+        FetchedRouter(int index, RouterConfig router, RouterDeviceConfig deviceConfig, JUNOS junos, String responseXml,
+                Semaphore session) {
+            this.index = index;
+            this.router = router;
+            this.deviceConfig = deviceConfig;
+            this.junos = junos;
+            this.responseXml = responseXml;
+            this.session = session;
+        }
+    }
+
+    // Згенеровані опції роутера для виводу
+    private static class RenderedRouter {
+
+        final int index;
+        final List<ConversionResult> results;
+        final boolean hasDefaultRoute;
+        // Зміни для --apply-config або null
+        final OptionChangePlan plan;
+
+        RenderedRouter(int index, List<ConversionResult> results, boolean hasDefaultRoute, OptionChangePlan plan) {
+            this.index = index;
+            this.results = results;
+            this.hasDefaultRoute = hasDefaultRoute;
+            this.plan = plan;
+        }
+    }
+
     // Внутрішній клас для зберігання інформації про оновлені пули
     private static class PoolUpdate {
 
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Arrays;
+
+/**
+ * Fits the routes of a pool into a byte budget for the options on the wire
+ * (option 121 plus option 249 when it is sent, including the code and length
+ * bytes of every RFC 3396 instance).
+ *
+ * When the routes do not fit, they are first summarized, which never changes
+ * the route a client picks. If that is not enough, routes are taken greedily
+ * by source priority (default gateway, common routes, append routes), shorter
+ * prefixes first, and whatever does not fit is dropped and reported.
+ */
+public class OptionBudgetPlanner {
+
+    private final int budget;
+    private final boolean withOption249;
+
+    /**
+     * @param budget Maximum size of the options on the wire, in bytes.
+     * @param withOption249 If true, option 249 is sent and counts against the
+     * budget.
+     */
+    public OptionBudgetPlanner(int budget, boolean withOption249) {
+        this.budget = budget;
+        this.withOption249 = withOption249;
+    }
+
+    /**
+     * Computes the size on the wire of routes that are not encoded yet.
+     *
+     * @param routes Routes of one pool.
+     * @param withOption249 If true, option 249 is counted as well.
+     * @return Size in bytes.
+     */
+    public static int wireLength(RouteList routes, boolean withOption249) {
+        int payload = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            payload += RouteCodec.encodedLength(routes.prefixLength(i));
+        }
+        return wireLength(payload, withOption249);
+    }
+
+    private static int wireLength(int payload, boolean withOption249) {
+        int length = DhcpOptionWriter.wireLength(payload);
+        return withOption249 ? length * 2 : length;
+    }
+
+    /**
+     * Reduces the routes of a pool until they fit into the budget.
+     *
+     * @param routes Conflict-free routes of one pool.
+     * @param poolName Pool name for diagnostics, may be null.
+     * @param result Receives the dropped routes and the budget report.
+     * @return The routes unchanged if they fit, otherwise the summarized
+     * and, if needed, truncated routes.
+     */
+    public RouteList plan(RouteList routes, String poolName, ConversionResult.Builder result) {
+        String pool = poolName != null ? "Pool " + poolName + ": " : "";
+        if (wireLength(routes, withOption249) <= budget) {
+            return routes;
+        }
+
+        RouteTrie trie = RouteTrie.of(routes);
+        trie.summarize();
+        RouteList summarized = trie.toRouteList();
+        int summarizedLength = wireLength(summarized, withOption249);
+        if (summarizedLength <= budget) {
+            result.info(pool + "Summarized " + routes.size() + " -> " + summarized.size()
+                    + " route(s) to fit --max-option-bytes=" + budget + " (" + summarizedLength + " bytes on the wire)");
+            return summarized;
+        }
+
+        // Ключ сортування: пріоритет джерела, довжина префікса, позиція у списку
+        long[] order = new long[summarized.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) summarized.source(i).ordinal() << 40)
+                    | ((long) summarized.prefixLength(i) << 32)
+                    | i;
+        }
+        Arrays.sort(order);
+
+        boolean[] kept = new boolean[order.length];
+        int payload = 0;
+        int keptCount = 0;
+        for (long key : order) {
+            int i = (int) key;
+            int length = RouteCodec.encodedLength(summarized.prefixLength(i));
+            if (wireLength(payload + length, withOption249) <= budget) {
+                kept[i] = true;
+                payload += length;
+                keptCount++;
+            }
+        }
+
+        RouteList planned = new RouteList(keptCount);
+        for (int i = 0; i < kept.length; i++) {
+            if (kept[i]) {
+                planned.add(summarized.prefix(i), summarized.prefixLength(i), summarized.gateway(i), summarized.source(i));
+            } else {
+                result.warn(pool + "Route " + DhcpOptionConverter.describe(summarized, i)
+                        + " dropped to fit --max-option-bytes=" + budget);
+            }
+        }
+        result.info(pool + "Kept " + keptCount + " of " + summarized.size() + " route(s) to fit --max-option-bytes="
+                + budget + " (" + wireLength(payload, withOption249) + " bytes on the wire)");
+        return planned;
+    }
+}
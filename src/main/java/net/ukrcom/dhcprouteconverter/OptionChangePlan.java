@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Option-level changes needed to bring the pools of one router to the desired
+ * routes. Desired and device options are compared as decoded route sets, so
+ * a device value that differs only in case, whitespace or route order is not
+ * a change. An empty plan means there is nothing to send to the router.
+ */
+public final class OptionChangePlan {
+
+    public enum Operation {
+        ADD, REPLACE, DELETE
+    }
+
+    /**
+     * One option of one pool to add, replace or delete.
+     */
+    public static final class Change {
+
+        private final String poolName;
+        private final int code;
+        private final Operation operation;
+        private final RouteSet routes;
+
+        Change(String poolName, int code, Operation operation, RouteSet routes) {
+            this.poolName = poolName;
+            this.code = code;
+            this.operation = operation;
+            this.routes = routes;
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        /**
+         * @return Option code, 121 or 249.
+         */
+        public int getCode() {
+            return code;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return Routes to set; empty for {@link Operation#DELETE}.
+         */
+        public RouteSet getRoutes() {
+            return routes;
+        }
+
+        @Override
+        public String toString() {
+            return operation.name().toLowerCase() + " pool " + poolName + " option " + code
+                    + (operation == Operation.DELETE ? "" : " " + routes.toHex());
+        }
+    }
+
+    private final String routerName;
+    private final List<Change> changes;
+
+    private OptionChangePlan(String routerName, List<Change> changes) {
+        this.routerName = routerName;
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Compares the desired routes of pools with the options found on the
+     * router.
+     *
+     * @param routerName Router name.
+     * @param desired Desired routes keyed by pool name; an empty route set
+     * asks for the option to be removed.
+     * @param device Pools read from the router, or null if the router was not
+     * read; then every non-empty desired option is an add.
+     * @param withOption249 If true, option 249 is planned with the same
+     * routes as option 121; otherwise option 249 is left alone.
+     * @return Changes in pool order, option 121 before 249.
+     */
+    public static OptionChangePlan diff(String routerName, Map<String, RouteSet> desired, Map<String, PoolDeviceConfig> device,
+            boolean withOption249) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<String, RouteSet> entry : desired.entrySet()) {
+            String poolName = entry.getKey();
+            PoolDeviceConfig current = device != null ? device.get(poolName) : null;
+            diffOption(poolName, DhcpOptionWriter.OPTION_121, entry.getValue(),
+                    current != null ? current.getOption121() : null, changes);
+            if (withOption249) {
+                diffOption(poolName, DhcpOptionWriter.OPTION_249, entry.getValue(),
+                        current != null ? current.getOption249() : null, changes);
+            }
+        }
+        return new OptionChangePlan(routerName, changes);
+    }
+
+    private static void diffOption(String poolName, int code, RouteSet wanted, String currentHex, List<Change> changes) {
+        boolean present = currentHex != null && !currentHex.isBlank();
+        if (wanted.isEmpty()) {
+            if (present) {
+                changes.add(new Change(poolName, code, Operation.DELETE, RouteSet.EMPTY));
+            }
+        } else if (!present) {
+            changes.add(new Change(poolName, code, Operation.ADD, wanted));
+        } else if (!matches(wanted, currentHex)) {
+            changes.add(new Change(poolName, code, Operation.REPLACE, wanted));
+        }
+    }
+
+    /**
+     * Compares desired routes with an option value read from a router.
+     *
+     * @param wanted Desired routes.
+     * @param currentHex Hexadecimal option value, may be null.
+     * @return True if the value holds the same routes, in any order.
+     */
+    public static boolean matches(RouteSet wanted, String currentHex) {
+        if (wanted.matchesHex(currentHex)) {
+            return true;
+        }
+        if (currentHex == null) {
+            return false;
+        }
+        try {
+            return wanted.sameRoutes(RouteSet.fromHex(currentHex.replaceAll("\\s+", "")));
+        } catch (IllegalArgumentException e) {
+            // Пошкоджене значення на роутері замінюємо
+            return false;
+        }
+    }
+
+    public String getRouterName() {
+        return routerName;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return True if the router already has the desired options.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * @return Names of the pools touched by the plan, in plan order.
+     */
+    public Set<String> getPoolNames() {
+        Set<String> pools = new LinkedHashSet<>();
+        for (Change change : changes) {
+            pools.add(change.poolName);
+        }
+        return pools;
+    }
+}
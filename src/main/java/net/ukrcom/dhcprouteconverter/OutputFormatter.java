@@ -28,7 +28,8 @@ public class OutputFormatter {
     /**
      * Formats DHCP options for the specified format.
      *
-     * @param aggregateHex Hexadecimal string of DHCP options.
+     * @param aggregateHex Hexadecimal string of DHCP options; routes after a
+     * malformed one are dropped.
      * @param withOption249 If true, includes option 249 (Microsoft-specific).
      * @param format Output format (e.g., ISC, JUNOS, CISCO).
      * @param junosPoolName Pool name for JunOS format.
@@ -36,41 +37,60 @@ public class OutputFormatter {
      * @return List of formatted DHCP option strings.
      */
     public List<String> formatDhcpOptions(String aggregateHex, boolean withOption249, Format format, String junosPoolName, String ciscoPoolName) {
-        List<String> results = new ArrayList<>();
         if (aggregateHex.isEmpty()) {
-            return results;
+            return new ArrayList<>();
+        }
+        // Формат обирається в одному місці: hex спершу декодується в маршрути
+        RouteSet.Builder routes = new RouteSet.Builder();
+        try {
+            RouteCodec.decode(aggregateHex, routes);
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: " + e.getMessage());
+        }
+        return formatDhcpOptions(routes.build(), withOption249, format, junosPoolName, ciscoPoolName);
+    }
+
+    /**
+     * Formats already encoded routes for the specified format.
+     *
+     * @param routes Routes produced by the converter.
+     * @param withOption249 If true, includes option 249 (Microsoft-specific).
+     * @param format Output format (e.g., ISC, JUNOS, CISCO).
+     * @param junosPoolName Pool name for JunOS format.
+     * @param ciscoPoolName Pool name for Cisco format.
+     * @return List of formatted DHCP option strings.
+     */
+    public List<String> formatDhcpOptions(RouteSet routes, boolean withOption249, Format format, String junosPoolName, String ciscoPoolName) {
+        if (routes.isEmpty()) {
+            return new ArrayList<>();
         }
 
         net.ukrcom.dhcprouteconverter.outputFormat.outputFormatInterface of = null;
 
         switch (format) {
             case DEFAULT -> {
-                of = new DEFAULT(aggregateHex, withOption249, null);
+                of = new DEFAULT(routes, withOption249, null);
             }
             case ISC -> {
-                of = new ISC(aggregateHex, withOption249, null);
+                of = new ISC(routes, withOption249, null);
             }
             case ROUTEROS -> {
-                of = new ROUTEROS(aggregateHex, withOption249, null);
+                of = new ROUTEROS(routes, withOption249, null);
             }
             case JUNOS -> {
-                of = new JUNOS(aggregateHex, withOption249, junosPoolName);
+                of = new JUNOS(routes, withOption249, junosPoolName);
             }
             case CISCO -> {
-                of = new CISCO(aggregateHex, withOption249, ciscoPoolName);
+                of = new CISCO(routes, withOption249, ciscoPoolName);
             }
             case WINDOWS -> {
-                of = new WINDOWS(aggregateHex, withOption249, null);
+                of = new WINDOWS(routes, withOption249, null);
             }
             default ->
                 throw new AssertionError("Unknown format: " + format);
         }
 
-        if (of != null) {
-            results = of.formatDhcpOptions();
-        }
-
-        return results;
+        return of.formatDhcpOptions();
     }
 
     /**
@@ -19,6 +19,7 @@ public class PoolDeviceConfig {
     private String defaultGateway;
     private String network;
     private String option121;
+    private String option249;
 
     public PoolDeviceConfig(String defaultGateway, String network, String option121) {
         this.defaultGateway = defaultGateway;
@@ -49,4 +50,12 @@ public class PoolDeviceConfig {
     public void setOption121(String option121) {
         this.option121 = option121;
     }
+
+    public String getOption249() {
+        return option249;
+    }
+
+    public void setOption249(String option249) {
+        this.option249 = option249;
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * On-disk store of the last pool configuration read from each router, keyed
+ * by the router's commit revision. A snapshot is reused only if the router
+ * reports the same last commit and the same get-configuration request was
+ * sent, so a filtered fetch never answers an unfiltered one.
+ *
+ * Every router has one file, {@code <directory>/<router>.xml}, with a
+ * revision line, a request digest line, an empty line and the raw response.
+ * Files are replaced atomically, so concurrent runs read either the old or
+ * the new snapshot.
+ */
+public class PoolSnapshotCache {
+
+    private static final String REVISION = "revision: ";
+    private static final String REQUEST = "request: ";
+
+    private final Path directory;
+
+    /**
+     * @param directory Directory for the snapshots; created on the first
+     * store.
+     */
+    public PoolSnapshotCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the stored response of a router if it was taken at the given
+     * revision with the given request.
+     *
+     * @param routerName Router name.
+     * @param revision Current commit revision of the router.
+     * @param request get-configuration request about to be sent.
+     * @return Stored response, or null if there is no matching snapshot.
+     */
+    public String load(String routerName, String revision, String request) {
+        String content;
+        try {
+            content = Files.readString(file(routerName), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("WARNING: Cannot read snapshot of router " + routerName + ": " + e.getMessage());
+            return null;
+        }
+        String header = header(revision, request);
+        return content.startsWith(header) ? content.substring(header.length()) : null;
+    }
+
+    /**
+     * Stores the response of a router, replacing its previous snapshot.
+     * Failures are reported and otherwise ignored: the cache only saves a
+     * round trip on the next run.
+     *
+     * @param routerName Router name.
+     * @param revision Commit revision the response was read at.
+     * @param request get-configuration request that was sent.
+     * @param responseXml Raw response.
+     */
+    public void store(String routerName, String revision, String request, String responseXml) {
+        Path target = file(routerName);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            Files.writeString(temp, header(revision, request) + responseXml, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("WARNING: Cannot store snapshot of router " + routerName + ": " + e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // тимчасовий файл залишиться до наступного запуску
+                }
+            }
+        }
+    }
+
+    private Path file(String routerName) {
+        // Ім'я роутера йде в ім'я файлу, тож прибираємо все, крім безпечних символів
+        return directory.resolve(routerName.replaceAll("[^A-Za-z0-9._-]", "_") + ".xml");
+    }
+
+    private static String header(String revision, String request) {
+        return REVISION + revision.replaceAll("[\r\n]", " ") + "\n" + REQUEST + digest(request) + "\n\n";
+    }
+
+    private static String digest(String request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
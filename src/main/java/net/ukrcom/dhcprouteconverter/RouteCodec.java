@@ -0,0 +1,466 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Primitive RFC 3442 route codec. Parses IPv4/CIDR text straight into ints and
+ * writes the classless static route encoding into caller-supplied buffers, so
+ * the hot path allocates nothing per route.
+ */
+public final class RouteCodec {
+
+    /**
+     * Returned by the parse methods when the input is malformed.
+     */
+    public static final long INVALID = -1L;
+
+    /**
+     * Largest encoded size of a single route: mask byte, four destination
+     * octets and four gateway octets.
+     */
+    public static final int MAX_ROUTE_BYTES = 9;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private RouteCodec() {
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address.
+     *
+     * @param text Address text (e.g., "10.0.0.1").
+     * @return Address as an unsigned 32-bit value, or {@link #INVALID}.
+     */
+    public static long parseAddress(CharSequence text) {
+        return parseAddress(text, 0, text.length());
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address from a region of a character sequence.
+     *
+     * @param text Source characters.
+     * @param start Index of the first character.
+     * @param end Index after the last character.
+     * @return Address as an unsigned 32-bit value, or {@link #INVALID}.
+     */
+    public static long parseAddress(CharSequence text, int start, int end) {
+        long address = 0;
+        int octets = 0;
+        int pos = start;
+        while (octets < 4) {
+            int value = 0;
+            int digits = 0;
+            while (pos < end && digits < 4) {
+                char c = text.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                pos++;
+            }
+            if (digits == 0 || digits > 3 || value > 255) {
+                return INVALID;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (octets < 4) {
+                if (pos >= end || text.charAt(pos) != '.') {
+                    return INVALID;
+                }
+                pos++;
+            }
+        }
+        return pos == end ? address : INVALID;
+    }
+
+    /**
+     * Parses a CIDR prefix (e.g., "192.168.1.0/24").
+     *
+     * @param text CIDR text.
+     * @return Address in the low 32 bits and prefix length in bits 32..39, or
+     * {@link #INVALID}. Use {@link #cidrAddress(long)} and
+     * {@link #cidrLength(long)} to unpack.
+     */
+    public static long parseCidr(CharSequence text) {
+        return parseCidr(text, 0, text.length());
+    }
+
+    /**
+     * Parses a CIDR prefix from a region of a character sequence.
+     *
+     * @param text Source characters.
+     * @param start Index of the first character.
+     * @param end Index after the last character.
+     * @return Packed address and prefix length, or {@link #INVALID}.
+     */
+    public static long parseCidr(CharSequence text, int start, int end) {
+        int slash = -1;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '/') {
+                slash = i;
+                break;
+            }
+        }
+        if (slash < 0 || end - slash < 2 || end - slash > 3) {
+            return INVALID;
+        }
+        long address = parseAddress(text, start, slash);
+        if (address == INVALID) {
+            return INVALID;
+        }
+        int length = 0;
+        for (int i = slash + 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            length = length * 10 + (c - '0');
+        }
+        if (length > 32) {
+            return INVALID;
+        }
+        return ((long) length << 32) | address;
+    }
+
+    /**
+     * Extracts the address from a value returned by {@link #parseCidr}.
+     *
+     * @param cidr Packed CIDR value.
+     * @return Address as a 32-bit int.
+     */
+    public static int cidrAddress(long cidr) {
+        return (int) cidr;
+    }
+
+    /**
+     * Extracts the prefix length from a value returned by {@link #parseCidr}.
+     *
+     * @param cidr Packed CIDR value.
+     * @return Prefix length (0-32).
+     */
+    public static int cidrLength(long cidr) {
+        return (int) (cidr >>> 32);
+    }
+
+    /**
+     * Number of destination octets RFC 3442 carries for a prefix length.
+     *
+     * @param prefixLength Prefix length (0-32).
+     * @return Significant octet count (0-4).
+     */
+    public static int significantOctets(int prefixLength) {
+        return (prefixLength + 7) >>> 3;
+    }
+
+    /**
+     * Encoded size of a single route.
+     *
+     * @param prefixLength Prefix length (0-32).
+     * @return Number of bytes the route occupies in option 121/249.
+     */
+    public static int encodedLength(int prefixLength) {
+        return 1 + significantOctets(prefixLength) + 4;
+    }
+
+    /**
+     * Writes one route in RFC 3442 form.
+     *
+     * @param prefix Destination address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     * @param dst Destination array; must have room for
+     * {@link #encodedLength(int)} bytes.
+     * @param offset Write position.
+     * @return Position after the last written byte.
+     */
+    public static int encode(int prefix, int prefixLength, int gateway, byte[] dst, int offset) {
+        int pos = offset;
+        dst[pos++] = (byte) prefixLength;
+        int significant = significantOctets(prefixLength);
+        for (int i = 0; i < significant; i++) {
+            dst[pos++] = (byte) (prefix >>> (24 - 8 * i));
+        }
+        dst[pos++] = (byte) (gateway >>> 24);
+        dst[pos++] = (byte) (gateway >>> 16);
+        dst[pos++] = (byte) (gateway >>> 8);
+        dst[pos++] = (byte) gateway;
+        return pos;
+    }
+
+    /**
+     * Writes one route in RFC 3442 form at the buffer's position.
+     *
+     * @param prefix Destination address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     * @param dst Destination buffer.
+     */
+    public static void encode(int prefix, int prefixLength, int gateway, ByteBuffer dst) {
+        dst.put((byte) prefixLength);
+        int significant = significantOctets(prefixLength);
+        for (int i = 0; i < significant; i++) {
+            dst.put((byte) (prefix >>> (24 - 8 * i)));
+        }
+        dst.putInt(gateway);
+    }
+
+    /**
+     * Appends the lowercase hex form of a byte range.
+     *
+     * @param src Source bytes.
+     * @param offset First byte.
+     * @param length Number of bytes.
+     * @param out Destination builder.
+     * @return The destination builder.
+     */
+    public static StringBuilder appendHex(byte[] src, int offset, int length, StringBuilder out) {
+        for (int i = offset; i < offset + length; i++) {
+            int b = src[i];
+            out.append(HEX_DIGITS[(b >>> 4) & 0x0f]).append(HEX_DIGITS[b & 0x0f]);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the lowercase hex form of a byte range.
+     *
+     * @param src Source bytes.
+     * @param offset First byte.
+     * @param length Number of bytes.
+     * @return Hex string.
+     */
+    public static String toHex(byte[] src, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = src[offset + i];
+            chars[2 * i] = HEX_DIGITS[(b >>> 4) & 0x0f];
+            chars[2 * i + 1] = HEX_DIGITS[b & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Compares a byte range with a hex string without decoding it. Hex digits
+     * may be in either case and whitespace anywhere in the string is ignored,
+     * so values copied from a device configuration compare as bytes.
+     *
+     * @param src Source bytes.
+     * @param offset First byte.
+     * @param length Number of bytes.
+     * @param hex Hex string to compare with.
+     * @return True if the hex string encodes exactly these bytes.
+     */
+    public static boolean hexEquals(byte[] src, int offset, int length, CharSequence hex) {
+        int index = 0;
+        int end = hex.length();
+        for (int i = offset; i < offset + length; i++) {
+            int high = -1;
+            int low = -1;
+            while (index < end && high == -1) {
+                high = hexDigit(hex.charAt(index++));
+            }
+            while (index < end && low == -1) {
+                low = hexDigit(hex.charAt(index++));
+            }
+            if (high < 0 || low < 0 || ((high << 4) | low) != (src[i] & 0xff)) {
+                return false;
+            }
+        }
+        // Після останнього байта дозволені лише пробіли
+        while (index < end) {
+            if (hexDigit(hex.charAt(index++)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param c Character of a hex string.
+     * @return Digit value (0-15), -1 for whitespace, -2 for anything else.
+     */
+    private static int hexDigit(char c) {
+        if (c < 128 && HEX_VALUES[c] >= 0) {
+            return HEX_VALUES[c];
+        }
+        return Character.isWhitespace(c) ? -1 : -2;
+    }
+
+    /**
+     * Appends an address in dotted-quad form.
+     *
+     * @param address Address as a 32-bit int.
+     * @param out Destination builder.
+     * @return The destination builder.
+     */
+    public static StringBuilder appendAddress(int address, StringBuilder out) {
+        return out.append(address >>> 24).append('.')
+                .append((address >>> 16) & 0xff).append('.')
+                .append((address >>> 8) & 0xff).append('.')
+                .append(address & 0xff);
+    }
+
+    /**
+     * Formats an address in dotted-quad form.
+     *
+     * @param address Address as a 32-bit int.
+     * @return Dotted-quad string.
+     */
+    public static String formatAddress(int address) {
+        return appendAddress(address, new StringBuilder(15)).toString();
+    }
+
+    /**
+     * Decodes a hex-encoded option 121/249 payload, handing every route to the
+     * visitor as primitive values. No intermediate strings are created.
+     *
+     * @param hex Hexadecimal payload (e.g., "18c0a8010a000001").
+     * @param visitor Receives each decoded route.
+     * @return Number of routes decoded.
+     * @throws IllegalArgumentException If the payload is malformed; routes
+     * before the malformed one have already been visited.
+     */
+    public static int decode(CharSequence hex, RouteVisitor visitor) {
+        int length = hex.length();
+        int index = 0;
+        int count = 0;
+        while (index < length) {
+            if (index + 2 > length) {
+                throw new IllegalArgumentException("Incomplete hex string at subnet mask");
+            }
+            int subnetMask = hexByte(hex, index);
+            if (subnetMask < 0 || subnetMask > 32) {
+                throw new IllegalArgumentException("Invalid subnet mask in hex: " + hex.subSequence(index, index + 2));
+            }
+            index += 2;
+
+            int significant = significantOctets(subnetMask);
+            int prefix = 0;
+            for (int i = 0; i < significant; i++) {
+                if (index + 2 > length) {
+                    throw new IllegalArgumentException("Incomplete hex string at destination");
+                }
+                int octet = hexByte(hex, index);
+                if (octet < 0) {
+                    throw new IllegalArgumentException("Invalid destination octet: " + hex.subSequence(index, index + 2));
+                }
+                prefix |= octet << (24 - 8 * i);
+                index += 2;
+            }
+
+            int gateway = 0;
+            for (int i = 0; i < 4; i++) {
+                if (index + 2 > length) {
+                    throw new IllegalArgumentException("Incomplete hex string at gateway");
+                }
+                int octet = hexByte(hex, index);
+                if (octet < 0) {
+                    throw new IllegalArgumentException("Invalid gateway octet: " + hex.subSequence(index, index + 2));
+                }
+                gateway = (gateway << 8) | octet;
+                index += 2;
+            }
+
+            visitor.visit(prefix, subnetMask, gateway);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Decodes a binary option 121/249 payload.
+     *
+     * @param src Source bytes.
+     * @param offset First payload byte.
+     * @param length Payload length.
+     * @param visitor Receives each decoded route.
+     * @return Number of routes decoded.
+     * @throws IllegalArgumentException If the payload is malformed.
+     */
+    public static int decode(byte[] src, int offset, int length, RouteVisitor visitor) {
+        return decode(ByteBuffer.wrap(src, offset, length), visitor);
+    }
+
+    /**
+     * Decodes a binary option 121/249 payload from the buffer's position to
+     * its limit. The position is advanced past every consumed route.
+     *
+     * @param src Source buffer.
+     * @param visitor Receives each decoded route.
+     * @return Number of routes decoded.
+     * @throws IllegalArgumentException If the payload is malformed.
+     */
+    public static int decode(ByteBuffer src, RouteVisitor visitor) {
+        int count = 0;
+        while (src.hasRemaining()) {
+            int start = src.position();
+            int subnetMask = src.get() & 0xff;
+            if (subnetMask > 32) {
+                src.position(start);
+                throw new IllegalArgumentException("Invalid subnet mask: " + subnetMask);
+            }
+            int significant = significantOctets(subnetMask);
+            if (src.remaining() < significant) {
+                src.position(start);
+                throw new IllegalArgumentException("Incomplete route at destination");
+            }
+            if (src.remaining() < significant + 4) {
+                src.position(start);
+                throw new IllegalArgumentException("Incomplete route at gateway");
+            }
+            int prefix = 0;
+            for (int i = 0; i < significant; i++) {
+                prefix |= (src.get() & 0xff) << (24 - 8 * i);
+            }
+            int gateway = src.getInt();
+            visitor.visit(prefix, subnetMask, gateway);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads two hex digits.
+     *
+     * @param hex Source characters.
+     * @param index Position of the high nibble.
+     * @return Byte value (0-255), or -1 if either digit is not hex.
+     */
+    private static int hexByte(CharSequence hex, int index) {
+        char high = hex.charAt(index);
+        char low = hex.charAt(index + 1);
+        if (high >= 128 || low >= 128) {
+            return -1;
+        }
+        int h = HEX_VALUES[high];
+        int l = HEX_VALUES[low];
+        return (h | l) < 0 ? -1 : (h << 4) | l;
+    }
+}
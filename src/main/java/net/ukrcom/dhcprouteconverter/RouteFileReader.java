@@ -0,0 +1,288 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a flat route file with one {@code network,gateway} pair per line.
+ *
+ * The file is memory-mapped, split on line boundaries into chunks and the
+ * chunks are parsed in parallel on the common fork-join pool straight into
+ * primitive {@link RouteList}s. Blank lines and lines starting with '#' are
+ * skipped; invalid lines are reported with their line number and skipped.
+ */
+public class RouteFileReader {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_REPORTED_ERRORS = 50;
+
+    private final ArgumentParser globalOptions;
+
+    public RouteFileReader(ArgumentParser globalOptions) {
+        this.globalOptions = globalOptions;
+    }
+
+    /**
+     * Reads all routes from a file.
+     *
+     * @param file Route file.
+     * @return Parsed routes in file order.
+     * @throws IOException If the file cannot be read or is larger than 2 GB.
+     */
+    public RouteList read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Route file " + file + " is larger than 2 GB");
+            }
+            if (fileSize == 0) {
+                return new RouteList();
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            List<Chunk> chunks = split(mapped, (int) fileSize);
+            List<ChunkResult> results = new ArrayList<>(chunks.size());
+            if (chunks.size() == 1) {
+                results.add(chunks.get(0).call());
+            } else {
+                for (Future<ChunkResult> result : ForkJoinPool.commonPool().invokeAll(chunks)) {
+                    results.add(join(result));
+                }
+            }
+            return merge(file, results);
+        }
+    }
+
+    private static ChunkResult join(Future<ChunkResult> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading routes");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Splits the mapped file into chunks that start right after a newline.
+     */
+    private List<Chunk> split(ByteBuffer data, int size) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, size / Math.max(1, parallelism * 4));
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < size) {
+            int end = (int) Math.min((long) start + chunkSize, size);
+            while (end < size && data.get(end - 1) != '\n') {
+                end++;
+            }
+            chunks.add(new Chunk(data, start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Concatenates chunk results in file order and reports errors with
+     * absolute line numbers.
+     */
+    private RouteList merge(Path file, List<ChunkResult> chunks) {
+        int total = 0;
+        for (ChunkResult chunk : chunks) {
+            total += chunk.routes.size();
+        }
+        RouteList routes = new RouteList(total);
+        long firstLine = 1;
+        int errors = 0;
+        for (ChunkResult chunk : chunks) {
+            routes.addAll(chunk.routes);
+            for (int i = 0; i < chunk.errorLines.size(); i++) {
+                if (errors < MAX_REPORTED_ERRORS) {
+                    System.err.println("ERROR: " + file + ":" + (firstLine + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                }
+                errors++;
+            }
+            firstLine += chunk.lines;
+        }
+        if (errors > MAX_REPORTED_ERRORS) {
+            System.err.println("ERROR: " + file + ": " + (errors - MAX_REPORTED_ERRORS) + " more invalid line(s) not shown");
+        }
+        if (globalOptions != null && globalOptions.isDebug()) {
+            System.err.println("DEBUG: Read " + routes.size() + " route(s) from " + file + " in " + chunks.size() + " chunk(s), "
+                    + errors + " invalid line(s)");
+        }
+        return routes;
+    }
+
+    /**
+     * One line-aligned region of the file. Parses into its own result so
+     * chunks share no mutable state.
+     */
+    private static final class Chunk implements Callable<ChunkResult> {
+
+        private final ByteBuffer data;
+        private final int start;
+        private final int end;
+
+        Chunk(ByteBuffer data, int start, int end) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public ChunkResult call() {
+            ChunkResult result = new ChunkResult();
+            Line line = new Line(data);
+            int pos = start;
+            while (pos < end) {
+                int eol = pos;
+                while (eol < end && data.get(eol) != '\n') {
+                    eol++;
+                }
+                parseLine(line, pos, eol, result);
+                result.lines++;
+                pos = eol + 1;
+            }
+            return result;
+        }
+
+        private void parseLine(Line line, int from, int to, ChunkResult result) {
+            while (from < to && isBlank(data.get(from))) {
+                from++;
+            }
+            while (to > from && isBlank(data.get(to - 1))) {
+                to--;
+            }
+            if (from == to || data.get(from) == '#') {
+                return;
+            }
+            line.set(from, to);
+            int comma = -1;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == ',') {
+                    comma = i;
+                    break;
+                }
+            }
+            if (comma < 0) {
+                result.error("expected 'network,gateway' but found '" + line + "'");
+                return;
+            }
+            int networkEnd = comma;
+            while (networkEnd > 0 && isBlank((byte) line.charAt(networkEnd - 1))) {
+                networkEnd--;
+            }
+            int gatewayStart = comma + 1;
+            while (gatewayStart < line.length() && isBlank((byte) line.charAt(gatewayStart))) {
+                gatewayStart++;
+            }
+            long cidr = RouteCodec.parseCidr(line, 0, networkEnd);
+            if (cidr == RouteCodec.INVALID) {
+                result.error("Invalid network format: " + line.subSequence(0, networkEnd));
+                return;
+            }
+            long gateway = RouteCodec.parseAddress(line, gatewayStart, line.length());
+            if (gateway == RouteCodec.INVALID) {
+                result.error("Invalid gateway format: " + line.subSequence(gatewayStart, line.length()));
+                return;
+            }
+            result.routes.add(RouteCodec.cidrAddress(cidr), RouteCodec.cidrLength(cidr), (int) gateway);
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+    }
+
+    /**
+     * Routes and invalid lines of one chunk; line numbers are relative to
+     * the chunk.
+     */
+    private static final class ChunkResult {
+
+        private final RouteList routes = new RouteList();
+        private final List<Long> errorLines = new ArrayList<>();
+        private final List<String> errorMessages = new ArrayList<>();
+        private long lines;
+
+        private void error(String message) {
+            errorLines.add(lines);
+            errorMessages.add(message);
+        }
+    }
+
+    /**
+     * Current line of a chunk seen as text, without copying its bytes.
+     */
+    private static final class Line implements CharSequence {
+
+        private final ByteBuffer data;
+        private int start;
+        private int end;
+
+        Line(ByteBuffer data) {
+            this.data = data;
+        }
+
+        void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (data.get(start + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            StringBuilder text = new StringBuilder(to - from);
+            for (int i = from; i < to; i++) {
+                text.append(charAt(i));
+            }
+            return text.toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
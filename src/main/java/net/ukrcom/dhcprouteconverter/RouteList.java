@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of parsed routes kept in primitive arrays. This is the input
+ * side of the converter: route sources are parsed into it and
+ * {@link DhcpOptionConverter} encodes it into a {@link RouteSet}.
+ *
+ * Every route remembers the {@link Source} it came from, which decides the
+ * winner when several routes name the same network.
+ */
+public class RouteList {
+
+    /**
+     * Origin of a route, in priority order (highest first).
+     */
+    public enum Source {
+        DEFAULT_GATEWAY("default gateway"),
+        COMMON("common routes"),
+        APPEND("append routes");
+
+        private final String label;
+
+        Source(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return Human-readable name used in diagnostics.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Source[] SOURCES = Source.values();
+
+    private int[] prefixes;
+    private byte[] lengths;
+    private int[] gateways;
+    private byte[] sources;
+    private int size;
+
+    public RouteList() {
+        this(16);
+    }
+
+    public RouteList(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.prefixes = new int[capacity];
+        this.lengths = new byte[capacity];
+        this.gateways = new int[capacity];
+        this.sources = new byte[capacity];
+    }
+
+    /**
+     * Appends a common route.
+     *
+     * @param prefix Destination network address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     */
+    public void add(int prefix, int prefixLength, int gateway) {
+        add(prefix, prefixLength, gateway, Source.COMMON);
+    }
+
+    /**
+     * Appends a route.
+     *
+     * @param prefix Destination network address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     * @param source Origin of the route.
+     */
+    public void add(int prefix, int prefixLength, int gateway, Source source) {
+        ensureCapacity(size + 1);
+        prefixes[size] = prefix;
+        lengths[size] = (byte) prefixLength;
+        gateways[size] = gateway;
+        sources[size] = (byte) source.ordinal();
+        size++;
+    }
+
+    /**
+     * Appends every route of another list.
+     *
+     * @param other Routes to append.
+     */
+    public void addAll(RouteList other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.prefixes, 0, prefixes, size, other.size);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        System.arraycopy(other.gateways, 0, gateways, size, other.size);
+        System.arraycopy(other.sources, 0, sources, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int prefix(int index) {
+        return prefixes[checkIndex(index)];
+    }
+
+    public int prefixLength(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    public int gateway(int index) {
+        return gateways[checkIndex(index)];
+    }
+
+    public Source source(int index) {
+        return SOURCES[sources[checkIndex(index)]];
+    }
+
+    /**
+     * Removes all routes, keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > prefixes.length) {
+            int newCapacity = Math.max(capacity, prefixes.length * 2);
+            prefixes = Arrays.copyOf(prefixes, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            gateways = Arrays.copyOf(gateways, newCapacity);
+            sources = Arrays.copyOf(sources, newCapacity);
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Route index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block of routes shared by many pools (the global append-routes), validated,
+ * deduplicated and encoded once when the configuration is loaded. Pools
+ * whose routes do not overlap any of its networks get their own routes
+ * encoded and this segment's bytes appended as they are.
+ */
+public final class RouteSegment {
+
+    public static final RouteSegment EMPTY = new RouteSegment(new RouteList(0), RouteSet.EMPTY);
+
+    private final RouteList routes;
+    private final RouteSet encoded;
+    // Відсортовані ключі (довжина << 32 | мережа) для швидкої перевірки перетинів
+    private final long[] networks;
+    // Довжини префіксів, що є в сегменті, крім 0
+    private final int[] prefixLengths;
+    private final long addressSpan;
+    private final boolean hasDefaultRoute;
+
+    private RouteSegment(RouteList routes, RouteSet encoded) {
+        this.routes = routes;
+        this.encoded = encoded;
+        this.networks = new long[routes.size()];
+        boolean defaultRoute = false;
+        long lengths = 0;
+        long span = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            networks[i] = networkKey(routes.prefix(i), routes.prefixLength(i));
+            if (routes.prefixLength(i) == 0) {
+                defaultRoute = true;
+            } else {
+                lengths |= 1L << routes.prefixLength(i);
+                span += 1L << (32 - routes.prefixLength(i));
+            }
+        }
+        Arrays.sort(networks);
+        this.prefixLengths = new int[Long.bitCount(lengths)];
+        for (int length = 1, n = 0; length <= 32; length++) {
+            if ((lengths & 1L << length) != 0) {
+                prefixLengths[n++] = length;
+            }
+        }
+        this.addressSpan = span;
+        this.hasDefaultRoute = defaultRoute;
+    }
+
+
+    /**
+     * Validates, deduplicates and encodes a YAML route block. Invalid entries
+     * are reported and skipped; for a network listed twice the first entry
+     * wins.
+     *
+     * @param entries Route maps with "network" and "gateway" keys, may be
+     * null.
+     * @param source Source the routes are tagged with.
+     * @return Compiled segment.
+     */
+    public static RouteSegment compile(List<Map<String, String>> entries, RouteList.Source source) {
+        if (entries == null || entries.isEmpty()) {
+            return EMPTY;
+        }
+        RouteList parsed = new RouteList(entries.size());
+        for (Map<String, String> entry : entries) {
+            DhcpOptionConverter.addRoute(entry != null ? entry.get("network") : null,
+                    entry != null ? entry.get("gateway") : null, source, parsed);
+        }
+        RouteList resolved = RouteTrie.resolve(parsed, new RouteTrie.ConflictListener() {
+            @Override
+            public void overridden(int winner, int loser) {
+                System.err.println("WARNING: Route " + DhcpOptionConverter.describe(parsed, loser)
+                        + (parsed.gateway(winner) != parsed.gateway(loser) ? " is overridden by " : " duplicates ")
+                        + DhcpOptionConverter.describe(parsed, winner));
+            }
+
+            @Override
+            public void unreachable(int route) {
+                System.err.println("WARNING: Route " + DhcpOptionConverter.describe(parsed, route)
+                        + " is unreachable, more specific routes cover all of it");
+            }
+        });
+        RouteSet.Builder builder = new RouteSet.Builder();
+        for (int i = 0; i < resolved.size(); i++) {
+            builder.add(resolved.prefix(i), resolved.prefixLength(i), resolved.gateway(i));
+        }
+        return new RouteSegment(resolved, builder.build());
+    }
+
+    private static long networkKey(int prefix, int prefixLength) {
+        return ((long) prefixLength << 32) | (RouteTrie.mask(prefix, prefixLength) & 0xffffffffL);
+    }
+
+    /**
+     * @return Number of routes in the segment.
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * @return True if the segment holds no routes.
+     */
+    public boolean isEmpty() {
+        return routes.isEmpty();
+    }
+
+    /**
+     * @return Encoded routes of the segment.
+     */
+    public RouteSet getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * @return True if the segment contains 0.0.0.0/0.
+     */
+    public boolean hasDefaultRoute() {
+        return hasDefaultRoute;
+    }
+
+    /**
+     * @param prefix Network address.
+     * @param prefixLength Prefix length (1-32).
+     * @return True if a route of the segment, other than the default route,
+     * names this network, lies inside it or contains it.
+     */
+    public boolean overlaps(int prefix, int prefixLength) {
+        for (int length : prefixLengths) {
+            // Для коротших префіксів сегмента діапазон стискається до однієї мережі
+            int shorter = Math.min(length, prefixLength);
+            long low = RouteTrie.mask(prefix, shorter) & 0xffffffffL;
+            long high = low | ((1L << (32 - shorter)) - 1);
+            int index = Arrays.binarySearch(networks, ((long) length << 32) | low);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index < networks.length && networks[index] <= (((long) length << 32) | high)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Sum of the address ranges of the segment's routes other than
+     * the default route; an upper bound of the addresses they cover.
+     */
+    public long getAddressSpan() {
+        return addressSpan;
+    }
+
+    /**
+     * Appends the segment's routes to a list.
+     *
+     * @param dst Destination list.
+     */
+    public void appendTo(RouteList dst) {
+        dst.addAll(routes);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of classless static routes together with their RFC 3442
+ * encoding. The converter produces it once per pool and every output format
+ * consumes it directly, so no format has to decode hex back into routes.
+ */
+public final class RouteSet {
+
+    public static final RouteSet EMPTY = new RouteSet(new int[0], 0, new byte[0], 0);
+
+    // Triplets of prefix, prefix length and gateway.
+    private final int[] routes;
+    private final int size;
+    private final byte[] encoded;
+    private String hex;
+
+    private RouteSet(int[] routes, int size, byte[] encoded, int encodedLength) {
+        this.routes = Arrays.copyOf(routes, size * 3);
+        this.size = size;
+        this.encoded = Arrays.copyOf(encoded, encodedLength);
+    }
+
+    /**
+     * Decodes a hexadecimal option 121/249 payload.
+     *
+     * @param hex Hexadecimal payload.
+     * @return Decoded routes.
+     * @throws IllegalArgumentException If the payload is malformed.
+     */
+    public static RouteSet fromHex(CharSequence hex) {
+        Builder builder = new Builder();
+        RouteCodec.decode(hex, builder);
+        return builder.build();
+    }
+
+    /**
+     * Joins two route sets without re-encoding them.
+     *
+     * @param first Routes that come first.
+     * @param second Routes appended after them.
+     * @return Combined routes.
+     */
+    public static RouteSet concat(RouteSet first, RouteSet second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        int[] routes = Arrays.copyOf(first.routes, (first.size + second.size) * 3);
+        System.arraycopy(second.routes, 0, routes, first.size * 3, second.size * 3);
+        byte[] encoded = Arrays.copyOf(first.encoded, first.encoded.length + second.encoded.length);
+        System.arraycopy(second.encoded, 0, encoded, first.encoded.length, second.encoded.length);
+        return new RouteSet(routes, first.size + second.size, encoded, encoded.length);
+    }
+
+    /**
+     * @return Number of routes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if the set holds no routes.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Route index.
+     * @return Destination network address of the route.
+     */
+    public int prefix(int index) {
+        return routes[checkIndex(index) * 3];
+    }
+
+    /**
+     * @param index Route index.
+     * @return Prefix length (0-32) of the route.
+     */
+    public int prefixLength(int index) {
+        return routes[checkIndex(index) * 3 + 1];
+    }
+
+    /**
+     * @param index Route index.
+     * @return Gateway address of the route.
+     */
+    public int gateway(int index) {
+        return routes[checkIndex(index) * 3 + 2];
+    }
+
+    /**
+     * Hands every route to the visitor in encoding order.
+     *
+     * @param visitor Route callback.
+     */
+    public void forEach(RouteVisitor visitor) {
+        for (int i = 0; i < size * 3; i += 3) {
+            visitor.visit(routes[i], routes[i + 1], routes[i + 2]);
+        }
+    }
+
+    /**
+     * @return Length of the RFC 3442 encoding in bytes.
+     */
+    public int encodedLength() {
+        return encoded.length;
+    }
+
+    /**
+     * @return Copy of the RFC 3442 encoding.
+     */
+    public byte[] toByteArray() {
+        return encoded.clone();
+    }
+
+    /**
+     * @return Lowercase hexadecimal form of the RFC 3442 encoding.
+     */
+    public String toHex() {
+        String result = hex;
+        if (result == null) {
+            result = RouteCodec.toHex(encoded, 0, encoded.length);
+            hex = result;
+        }
+        return result;
+    }
+
+    /**
+     * Compares the encoding with a hexadecimal payload, e.g. the option 121
+     * value read from a router. Case and whitespace are ignored.
+     *
+     * @param hex Hexadecimal payload, may be null.
+     * @return True if the payload encodes exactly these routes; a null payload
+     * matches an empty set.
+     */
+    public boolean matchesHex(CharSequence hex) {
+        if (hex == null) {
+            return encoded.length == 0;
+        }
+        return RouteCodec.hexEquals(encoded, 0, encoded.length, hex);
+    }
+
+    /**
+     * Compares the routes regardless of their order. Option 121 routes are
+     * chosen by longest prefix match, so two sets with the same routes in a
+     * different order configure clients the same way.
+     *
+     * @param other Routes to compare with.
+     * @return True if both sets hold the same routes.
+     */
+    public boolean sameRoutes(RouteSet other) {
+        if (size != other.size) {
+            return false;
+        }
+        if (Arrays.equals(encoded, other.encoded)) {
+            return true;
+        }
+        return Arrays.equals(sortedRoutes(), other.sortedRoutes());
+    }
+
+    private int[] sortedRoutes() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i * 3;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Integer.compareUnsigned(routes[a], routes[b]);
+            if (c == 0) {
+                c = Integer.compare(routes[a + 1], routes[b + 1]);
+            }
+            return c != 0 ? c : Integer.compareUnsigned(routes[a + 2], routes[b + 2]);
+        });
+        int[] sorted = new int[size * 3];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(routes, order[i], sorted, i * 3, 3);
+        }
+        return sorted;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Route index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RouteSet)) {
+            return false;
+        }
+        return Arrays.equals(encoded, ((RouteSet) obj).encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    /**
+     * Accumulates routes and their encoding. Can be used directly as the
+     * visitor of {@link RouteCodec#decode}.
+     */
+    public static final class Builder implements RouteVisitor {
+
+        private int[] routes = new int[3 * 8];
+        private int size;
+        private byte[] encoded = new byte[RouteCodec.MAX_ROUTE_BYTES * 8];
+        private int encodedLength;
+
+        @Override
+        public void visit(int prefix, int prefixLength, int gateway) {
+            add(prefix, prefixLength, gateway);
+        }
+
+        /**
+         * Appends a route.
+         *
+         * @param prefix Destination network address.
+         * @param prefixLength Prefix length (0-32).
+         * @param gateway Gateway address.
+         * @return This builder.
+         */
+        public Builder add(int prefix, int prefixLength, int gateway) {
+            if (size * 3 == routes.length) {
+                routes = Arrays.copyOf(routes, routes.length * 2);
+            }
+            if (encodedLength + RouteCodec.MAX_ROUTE_BYTES > encoded.length) {
+                encoded = Arrays.copyOf(encoded, encoded.length * 2);
+            }
+            routes[size * 3] = prefix;
+            routes[size * 3 + 1] = prefixLength;
+            routes[size * 3 + 2] = gateway;
+            size++;
+            encodedLength = RouteCodec.encode(prefix, prefixLength, gateway, encoded, encodedLength);
+            return this;
+        }
+
+        /**
+         * @return Number of routes added so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Clears the builder so its buffers can be reused.
+         */
+        public void reset() {
+            size = 0;
+            encodedLength = 0;
+        }
+
+        /**
+         * @return Immutable snapshot of the accumulated routes.
+         */
+        public RouteSet build() {
+            return size == 0 ? EMPTY : new RouteSet(routes, size, encoded, encodedLength);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of encoded route sets keyed by route list content. Pools
+ * whose final routes are identical (typically the same append-routes behind a
+ * handful of default gateways) get the same immutable {@link RouteSet}
+ * instead of being encoded again.
+ *
+ * Lookups are thread-safe; encoding happens outside the lock, so two threads
+ * missing on the same key may both encode it and the first result is kept.
+ */
+public class RouteSetCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Map<Key, RouteSet> entries;
+    private long hits;
+    private long misses;
+
+    public RouteSetCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of route sets kept; the least recently
+     * used one is evicted first.
+     */
+    public RouteSetCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, RouteSet> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached encoding of a route list, encoding it on a miss.
+     *
+     * @param routes Final routes of a pool.
+     * @param encoder Called with the routes on a miss.
+     * @return Shared encoded route set.
+     */
+    public RouteSet get(RouteList routes, Function<RouteList, RouteSet> encoder) {
+        Key key = new Key(routes);
+        synchronized (this) {
+            RouteSet cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        RouteSet encoded = encoder.apply(routes);
+        synchronized (this) {
+            RouteSet raced = entries.putIfAbsent(key, encoded);
+            return raced != null ? raced : encoded;
+        }
+    }
+
+    /**
+     * @return Number of route sets currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Number of lookups answered from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Number of lookups that had to encode.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Route list content flattened to (prefix, length, gateway) triplets. The
+     * source of a route does not affect its encoding and is left out.
+     */
+    private static final class Key {
+
+        private final int[] triplets;
+        private final int hash;
+
+        Key(RouteList routes) {
+            triplets = new int[routes.size() * 3];
+            for (int i = 0; i < routes.size(); i++) {
+                triplets[i * 3] = routes.prefix(i);
+                triplets[i * 3 + 1] = routes.prefixLength(i);
+                triplets[i * 3 + 2] = routes.gateway(i);
+            }
+            hash = Arrays.hashCode(triplets);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).hash == hash && Arrays.equals(((Key) obj).triplets, triplets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
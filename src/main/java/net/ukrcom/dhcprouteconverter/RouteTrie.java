@@ -0,0 +1,331 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.Arrays;
+
+/**
+ * Binary prefix trie over IPv4 routes of a single pool. Nodes live in
+ * primitive arrays; node 0 is 0.0.0.0/0.
+ *
+ * {@link #summarize()} shrinks the route set without changing the result of a
+ * longest-prefix-match lookup for any address:
+ * <ul>
+ * <li>two sibling prefixes with the same gateway are replaced by their parent
+ * when the parent itself is not a route;</li>
+ * <li>a prefix is dropped when the nearest covering route has the same
+ * gateway.</li>
+ * </ul>
+ *
+ * {@link #resolve(RouteList, ConflictListener)} uses the same index to apply
+ * the documented route priority before anything is encoded.
+ */
+public class RouteTrie {
+
+    private static final int NONE = -1;
+    private static final RouteList.Source[] SOURCES = RouteList.Source.values();
+
+    /**
+     * Receives the outcome of {@link #resolve(RouteList, ConflictListener)}.
+     * Arguments are indexes into the list passed to resolve, not into the
+     * returned one.
+     */
+    public interface ConflictListener {
+
+        /**
+         * Called when two routes name the same network.
+         *
+         * @param winner Route that is kept.
+         * @param loser Route that is dropped.
+         */
+        void overridden(int winner, int loser);
+
+        /**
+         * Called for a route whose whole address range is covered by more
+         * specific routes, so no client ever uses it.
+         *
+         * @param route Unreachable route.
+         */
+        void unreachable(int route);
+    }
+
+    private int[] left;
+    private int[] right;
+    private int[] gateways;
+    private int[] owners;
+    private byte[] sources;
+    private boolean[] routes;
+    private int nodes;
+    private int routeCount;
+
+    public RouteTrie() {
+        int capacity = 64;
+        left = new int[capacity];
+        right = new int[capacity];
+        gateways = new int[capacity];
+        owners = new int[capacity];
+        sources = new byte[capacity];
+        routes = new boolean[capacity];
+        nodes = 1;
+        left[0] = NONE;
+        right[0] = NONE;
+        owners[0] = NONE;
+    }
+
+    /**
+     * Builds a trie from a route list. When the same prefix appears more than
+     * once, the first occurrence wins.
+     *
+     * @param list Routes to insert.
+     * @return New trie.
+     */
+    public static RouteTrie of(RouteList list) {
+        RouteTrie trie = new RouteTrie();
+        for (int i = 0; i < list.size(); i++) {
+            trie.insert(list.prefix(i), list.prefixLength(i), list.gateway(i), list.source(i));
+        }
+        return trie;
+    }
+
+    /**
+     * Drops every route that names an already listed network, keeping the one
+     * with the higher {@link RouteList.Source} priority (the earlier one on a
+     * tie), and reports routes made unreachable by more specific ones.
+     *
+     * @param list Routes of one pool.
+     * @param listener Receives overridden and unreachable routes, may be null.
+     * @return Surviving routes in input order.
+     */
+    public static RouteList resolve(RouteList list, ConflictListener listener) {
+        RouteTrie trie = new RouteTrie();
+        boolean[] kept = new boolean[list.size()];
+        int survivors = 0;
+        for (int i = 0; i < list.size(); i++) {
+            int node = trie.locate(list.prefix(i), list.prefixLength(i));
+            int current = trie.owners[node];
+            if (!trie.routes[node]) {
+                trie.routes[node] = true;
+                trie.routeCount++;
+            } else if (list.source(i).ordinal() < list.source(current).ordinal()) {
+                kept[current] = false;
+                survivors--;
+                if (listener != null) {
+                    listener.overridden(i, current);
+                }
+            } else {
+                if (listener != null) {
+                    listener.overridden(current, i);
+                }
+                continue;
+            }
+            trie.gateways[node] = list.gateway(i);
+            trie.sources[node] = (byte) list.source(i).ordinal();
+            trie.owners[node] = i;
+            kept[i] = true;
+            survivors++;
+        }
+        if (listener != null) {
+            trie.findUnreachable(0, listener);
+        }
+        if (survivors == list.size()) {
+            return list;
+        }
+        RouteList resolved = new RouteList(survivors);
+        for (int i = 0; i < list.size(); i++) {
+            if (kept[i]) {
+                resolved.add(list.prefix(i), list.prefixLength(i), list.gateway(i), list.source(i));
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Masks host bits off an address.
+     *
+     * @param prefix Address.
+     * @param prefixLength Prefix length (0-32).
+     * @return Network address.
+     */
+    public static int mask(int prefix, int prefixLength) {
+        return prefixLength == 0 ? 0 : prefix & (-1 << (32 - prefixLength));
+    }
+
+    /**
+     * Inserts a route. Host bits of the prefix are ignored.
+     *
+     * @param prefix Destination network address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     * @return True if the route was added, false if the prefix is already
+     * present.
+     */
+    public boolean insert(int prefix, int prefixLength, int gateway) {
+        return insert(prefix, prefixLength, gateway, RouteList.Source.COMMON);
+    }
+
+    /**
+     * Inserts a route of the given source. Host bits of the prefix are
+     * ignored.
+     *
+     * @param prefix Destination network address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     * @param source Origin of the route.
+     * @return True if the route was added, false if the prefix is already
+     * present.
+     */
+    public boolean insert(int prefix, int prefixLength, int gateway, RouteList.Source source) {
+        int node = locate(prefix, prefixLength);
+        if (routes[node]) {
+            return false;
+        }
+        routes[node] = true;
+        gateways[node] = gateway;
+        sources[node] = (byte) source.ordinal();
+        routeCount++;
+        return true;
+    }
+
+    /**
+     * @return Number of routes in the trie.
+     */
+    public int size() {
+        return routeCount;
+    }
+
+    /**
+     * Collapses mergeable prefixes that share a gateway. The longest-prefix
+     * match result for every address is preserved.
+     */
+    public void summarize() {
+        mergeSiblings(0);
+        dropRedundant(0, false, 0);
+    }
+
+    /**
+     * Returns the routes in trie pre-order (shorter, lower prefixes first). A
+     * route created by merging two siblings takes the higher-priority source
+     * of the two.
+     *
+     * @return Route list with host bits cleared.
+     */
+    public RouteList toRouteList() {
+        RouteList list = new RouteList(routeCount);
+        collect(0, 0, 0, list);
+        return list;
+    }
+
+    /**
+     * Walks down to the node of a prefix, creating missing nodes on the way.
+     */
+    private int locate(int prefix, int prefixLength) {
+        int node = 0;
+        for (int bit = 0; bit < prefixLength; bit++) {
+            boolean one = ((prefix >>> (31 - bit)) & 1) != 0;
+            int child = one ? right[node] : left[node];
+            if (child == NONE) {
+                child = newNode();
+                if (one) {
+                    right[node] = child;
+                } else {
+                    left[node] = child;
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Reports routes whose both halves are fully covered by deeper routes.
+     *
+     * @return True if every address under the node matches some route.
+     */
+    private boolean findUnreachable(int node, ConflictListener listener) {
+        boolean leftCovered = left[node] != NONE && findUnreachable(left[node], listener);
+        boolean rightCovered = right[node] != NONE && findUnreachable(right[node], listener);
+        boolean childrenCover = leftCovered && rightCovered;
+        if (routes[node] && childrenCover) {
+            listener.unreachable(owners[node]);
+        }
+        return routes[node] || childrenCover;
+    }
+
+    private void mergeSiblings(int node) {
+        int l = left[node];
+        int r = right[node];
+        if (l != NONE) {
+            mergeSiblings(l);
+        }
+        if (r != NONE) {
+            mergeSiblings(r);
+        }
+        if (!routes[node] && l != NONE && r != NONE && routes[l] && routes[r] && gateways[l] == gateways[r]) {
+            routes[node] = true;
+            gateways[node] = gateways[l];
+            sources[node] = (byte) Math.min(sources[l], sources[r]);
+            routes[l] = false;
+            routes[r] = false;
+            routeCount--;
+        }
+    }
+
+    private void dropRedundant(int node, boolean covered, int coveringGateway) {
+        if (routes[node]) {
+            if (covered && coveringGateway == gateways[node]) {
+                routes[node] = false;
+                routeCount--;
+            } else {
+                covered = true;
+                coveringGateway = gateways[node];
+            }
+        }
+        if (left[node] != NONE) {
+            dropRedundant(left[node], covered, coveringGateway);
+        }
+        if (right[node] != NONE) {
+            dropRedundant(right[node], covered, coveringGateway);
+        }
+    }
+
+    private void collect(int node, int prefix, int depth, RouteList list) {
+        if (routes[node]) {
+            list.add(prefix, depth, gateways[node], SOURCES[sources[node]]);
+        }
+        if (left[node] != NONE) {
+            collect(left[node], prefix, depth + 1, list);
+        }
+        if (right[node] != NONE) {
+            collect(right[node], prefix | (1 << (31 - depth)), depth + 1, list);
+        }
+    }
+
+    private int newNode() {
+        if (nodes == left.length) {
+            int capacity = nodes * 2;
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            gateways = Arrays.copyOf(gateways, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+            sources = Arrays.copyOf(sources, capacity);
+            routes = Arrays.copyOf(routes, capacity);
+        }
+        int node = nodes++;
+        left[node] = NONE;
+        right[node] = NONE;
+        owners[node] = NONE;
+        return node;
+    }
+}
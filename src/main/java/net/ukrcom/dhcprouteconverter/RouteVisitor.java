@@ -0,0 +1,32 @@
+/*
+ * Copyright 2025 Ukrcom
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter;
+
+/**
+ * Callback for routes decoded by {@link RouteCodec}. Addresses are passed as
+ * 32-bit ints in network byte order (e.g., 10.0.0.1 is 0x0a000001).
+ */
+@FunctionalInterface
+public interface RouteVisitor {
+
+    /**
+     * Receives one decoded route.
+     *
+     * @param prefix Destination network address.
+     * @param prefixLength Prefix length (0-32).
+     * @param gateway Gateway address.
+     */
+    void visit(int prefix, int prefixLength, int gateway);
+}
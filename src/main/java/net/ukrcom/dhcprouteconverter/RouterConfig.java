@@ -14,27 +14,40 @@
  */
 package net.ukrcom.dhcprouteconverter;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class RouterConfig {
 
     private String name;
+    private String host;
     private String username;
     private String password;
     private ApplyMethod applyMethod;
     private boolean disableAppendRoutes;
     private Map<String, PoolConfig> pools;
+    private BastionConfig bastion;
+    private boolean directConnection;
 
     public RouterConfig() {
-        this.pools = new HashMap<>();
+        this.pools = new LinkedHashMap<>();
         this.disableAppendRoutes = false;
     }
 
     public static RouterConfig fromMap(Map<String, Object> map) {
         RouterConfig config = new RouterConfig();
         config.name = (String) map.get("name");
+        config.host = (String) map.get("host");
         config.disableAppendRoutes = (Boolean) map.getOrDefault("disable-append-routes", false);
+        // bastion: false — підключатися напряму, навіть якщо в global задано bastion
+        Object bastion = map.get("bastion");
+        if (bastion instanceof Map) {
+            config.bastion = BastionConfig.fromMap((Map<String, Object>) bastion);
+        } else if (Boolean.FALSE.equals(bastion)) {
+            config.directConnection = true;
+        } else if (bastion != null) {
+            throw new IllegalArgumentException("bastion of router " + config.name + " must be a map or false");
+        }
         Map<String, Object> poolsMap = (Map<String, Object>) map.get("pools");
         if (poolsMap != null) {
             for (Map.Entry<String, Object> entry : poolsMap.entrySet()) {
@@ -52,6 +65,18 @@ public class RouterConfig {
         this.name = name;
     }
 
+    /**
+     * @return Host name or address of the router, or null to use the name
+     * with the global domain suffix.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -84,6 +109,29 @@ public class RouterConfig {
         this.disableAppendRoutes = disableAppendRoutes;
     }
 
+    /**
+     * @return Jump host of this router, or null to use the global one.
+     */
+    public BastionConfig getBastion() {
+        return bastion;
+    }
+
+    public void setBastion(BastionConfig bastion) {
+        this.bastion = bastion;
+    }
+
+    /**
+     * @return True if the router is reached directly even when a global
+     * bastion is configured ("bastion: false").
+     */
+    public boolean isDirectConnection() {
+        return directConnection;
+    }
+
+    public void setDirectConnection(boolean directConnection) {
+        this.directConnection = directConnection;
+    }
+
     public Map<String, PoolConfig> getPools() {
         return pools;
     }
@@ -24,6 +24,9 @@ public class RouterDeviceConfig {
     private final String password;
     private final ApplyMethod applyMethod;
     private final Map<String, PoolDeviceConfig> pools;
+    private BastionConfig bastion;
+    private String hostname;
+    private String address;
 
     public RouterDeviceConfig(String name, String username, String password, ApplyMethod applyMethod) {
         this.name = name;
@@ -49,6 +52,42 @@ public class RouterDeviceConfig {
         return applyMethod;
     }
 
+    /**
+     * @return Host name of the router, or null if it was not set and the
+     * name with the default domain suffix is used.
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
+    public void setHostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    /**
+     * @return Pre-resolved address of the host name, or null to resolve it
+     * on connect.
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    /**
+     * @return Jump host the NETCONF session is tunnelled through, or null for
+     * a direct connection.
+     */
+    public BastionConfig getBastion() {
+        return bastion;
+    }
+
+    public void setBastion(BastionConfig bastion) {
+        this.bastion = bastion;
+    }
+
     public Map<String, PoolDeviceConfig> getPools() {
         return pools;
     }
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2025 ukr-com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import com.jcraft.jsch.ChannelDirectTCPIP;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Proxy;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SocketFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import net.juniper.netconf.Device;
+import net.juniper.netconf.NetconfException;
+import net.ukrcom.dhcprouteconverter.BastionConfig;
+
+/**
+ * Tunnels NETCONF sessions to routers through SSH jump hosts. Every bastion
+ * gets one SSH connection for the whole run, opened on first use. Each NETCONF
+ * session travels in its own direct-tcpip channel over that connection,
+ * opened when the session connects and closed with it, so the run does one
+ * bastion handshake instead of one per router. No local port is listened on.
+ *
+ * The number of tunnelled sessions open at the same time is capped per
+ * bastion by its max-channels. When all channels are taken, idle pooled
+ * sessions on the bastion are closed, oldest first, and only then does a
+ * session wait for a channel held by a busy one. Tunnelled devices must be
+ * closed with {@link #closeDevice} so their channel is given back.
+ */
+public final class BastionTunnels {
+
+    /**
+     * Connects a device with the given SSH client.
+     */
+    @FunctionalInterface
+    interface Opener {
+
+        Device open(JSch client, String hostname, int port) throws NetconfException, JSchException;
+    }
+
+    private static final BastionTunnels SHARED = new BastionTunnels();
+
+    private final Map<BastionConfig, Bastion> bastions = new HashMap<>();
+    private final Map<Device, Semaphore> tunnelled = new IdentityHashMap<>();
+
+    private BastionTunnels() {
+    }
+
+    /**
+     * @return Tunnels of the run.
+     */
+    public static BastionTunnels shared() {
+        return SHARED;
+    }
+
+    /**
+     * Opens a NETCONF session to a router through a bastion.
+     *
+     * @param ssh SSH client of the run.
+     * @param bastion Jump host.
+     * @param hostname Router host name, resolved by the bastion.
+     * @param port Router NETCONF port.
+     * @param timeoutMillis Timeout for the bastion connection and for waiting
+     * for a free channel.
+     * @param pool Pool whose idle sessions give up their channels when the
+     * bastion has none free, or null.
+     * @param opener Connects the device with a client whose sessions go
+     * through the bastion.
+     * @return Connected device; close it with {@link #closeDevice}.
+     * @throws NetconfException If the router session cannot be established
+     * or no channel becomes free in time.
+     * @throws JSchException If the bastion cannot be reached.
+     */
+    Device connect(SshClientFactory ssh, BastionConfig bastion, String hostname, int port, int timeoutMillis,
+            NetconfSessionPool pool, Opener opener) throws NetconfException, JSchException {
+        Bastion jump = bastion(bastion);
+        return connect(bastion, timeoutMillis, pool,
+                () -> opener.open(jump.client(ssh, timeoutMillis), hostname, port));
+    }
+
+    /**
+     * Takes a channel of the bastion and opens a session on it.
+     *
+     * @param bastion Jump host.
+     * @param timeoutMillis Timeout for waiting for a free channel.
+     * @param pool Pool whose idle sessions give up their channels, or null.
+     * @param channel Opens the session over the bastion.
+     * @return Connected device; close it with {@link #closeDevice}.
+     * @throws NetconfException If the session cannot be established or no
+     * channel becomes free in time.
+     * @throws JSchException If the bastion cannot be reached.
+     */
+    Device connect(BastionConfig bastion, int timeoutMillis, NetconfSessionPool pool, NetconfSessionPool.Connector channel)
+            throws NetconfException, JSchException {
+        Bastion jump = bastion(bastion);
+        boolean acquired = jump.channels.tryAcquire();
+        // Простоюючі сесії пулу тримають канали: закриваємо найстаріші на цьому bastion
+        while (!acquired && pool != null && pool.evictOldest(device -> isTunnelledOn(device, jump))) {
+            acquired = jump.channels.tryAcquire();
+        }
+        try {
+            if (!acquired && !jump.channels.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new NetconfException("No free channel on bastion " + bastion + " within " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetconfException("Interrupted while waiting for a channel on bastion " + bastion);
+        }
+        Device device;
+        try {
+            device = channel.connect();
+        } catch (NetconfException | JSchException | RuntimeException e) {
+            jump.channels.release();
+            throw e;
+        }
+        synchronized (this) {
+            tunnelled.put(device, jump.channels);
+        }
+        return device;
+    }
+
+    private synchronized Bastion bastion(BastionConfig bastion) {
+        return bastions.computeIfAbsent(bastion, Bastion::new);
+    }
+
+    private synchronized boolean isTunnelledOn(Device device, Bastion jump) {
+        return tunnelled.get(device) == jump.channels;
+    }
+
+    /**
+     * Closes a device and, if it was tunnelled, frees its channel.
+     *
+     * @param device Device opened directly or by {@link #connect}.
+     */
+    public static void closeDevice(Device device) {
+        device.close();
+        Semaphore channels;
+        synchronized (SHARED) {
+            channels = SHARED.tunnelled.remove(device);
+        }
+        if (channels != null) {
+            channels.release();
+        }
+    }
+
+    /**
+     * Disconnects all bastions. Called at the end of the run, after the
+     * router sessions are closed.
+     */
+    public void close() {
+        List<Bastion> open;
+        synchronized (this) {
+            open = new ArrayList<>(bastions.values());
+            bastions.clear();
+        }
+        for (Bastion jump : open) {
+            jump.disconnect();
+        }
+    }
+
+    /**
+     * @return Number of bastion connections opened so far.
+     */
+    public synchronized int getConnections() {
+        int connections = 0;
+        for (Bastion jump : bastions.values()) {
+            connections += jump.connections;
+        }
+        return connections;
+    }
+
+    private static final class Bastion {
+
+        private final BastionConfig config;
+        private final Semaphore channels;
+        private Session session;
+        private volatile int connections;
+
+        Bastion(BastionConfig config) {
+            this.config = config;
+            this.channels = new Semaphore(config.getMaxChannels(), true);
+        }
+
+        /**
+         * Returns a client whose sessions run over a direct-tcpip channel of
+         * this bastion, connecting the bastion first if needed.
+         */
+        synchronized JSch client(SshClientFactory ssh, int timeoutMillis) throws JSchException {
+            if (session == null || !session.isConnected()) {
+                long started = System.nanoTime();
+                session = ssh.client()
+                        .getSession(config.getUsername(), config.getHost(), config.getPort());
+                session.setPassword(config.getPassword());
+                session.setConfig("StrictHostKeyChecking", "no");
+                session.setServerAliveInterval(30_000);
+                session.connect(timeoutMillis);
+                connections++;
+                ssh.recordHandshake(System.nanoTime() - started);
+            }
+            Session jump = session;
+            return new JSch() {
+                @Override
+                public Session getSession(String username, String host, int port) throws JSchException {
+                    Session routed = super.getSession(username, host, port);
+                    routed.setProxy(new DirectTcpip(jump));
+                    return routed;
+                }
+            };
+        }
+
+        synchronized void disconnect() {
+            if (session != null) {
+                session.disconnect();
+                session = null;
+            }
+        }
+    }
+
+    /**
+     * Carries one SSH session in a direct-tcpip channel of the bastion; the
+     * router host name is resolved by the bastion.
+     */
+    private static final class DirectTcpip implements Proxy {
+
+        private final Session bastion;
+        private ChannelDirectTCPIP channel;
+        private InputStream in;
+        private OutputStream out;
+
+        DirectTcpip(Session bastion) {
+            this.bastion = bastion;
+        }
+
+        @Override
+        public void connect(SocketFactory socketFactory, String host, int port, int timeout) throws Exception {
+            channel = (ChannelDirectTCPIP) bastion.openChannel("direct-tcpip");
+            channel.setHost(host);
+            channel.setPort(port);
+            // Потоки беремо до connect, щоб не загубити перші байти від роутера
+            in = channel.getInputStream();
+            out = channel.getOutputStream();
+            channel.connect(timeout);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public Socket getSocket() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            if (channel != null) {
+                channel.disconnect();
+            }
+        }
+    }
+}
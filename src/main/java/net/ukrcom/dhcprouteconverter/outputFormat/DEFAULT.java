@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 import net.ukrcom.dhcprouteconverter.ApplyMethod;
 import net.ukrcom.dhcprouteconverter.ArgumentParser;
+import net.ukrcom.dhcprouteconverter.RouteSet;
 
 /**
  *
@@ -30,6 +31,10 @@ public class DEFAULT extends outputFormatAbstract implements outputFormatInterfa
         super(aggregateHex, withOption249, poolName);
     }
 
+    public DEFAULT(RouteSet routes, boolean withOption249, String poolName) {
+        super(routes, withOption249, poolName);
+    }
+
     public DEFAULT(String config, String username, String password, ApplyMethod method, ArgumentParser parser) {
         super(config, username, password, method, parser);
     }
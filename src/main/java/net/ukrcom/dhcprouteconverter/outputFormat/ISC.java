@@ -19,6 +19,8 @@ import java.util.ArrayList;
 import java.util.List;
 import net.ukrcom.dhcprouteconverter.ApplyMethod;
 import net.ukrcom.dhcprouteconverter.ArgumentParser;
+import net.ukrcom.dhcprouteconverter.RouteCodec;
+import net.ukrcom.dhcprouteconverter.RouteSet;
 
 /**
  *
@@ -30,6 +32,10 @@ public class ISC extends outputFormatAbstract implements outputFormatInterface {
         super(aggregateHex, withOption249, poolName);
     }
 
+    public ISC(RouteSet routes, boolean withOption249, String poolName) {
+        super(routes, withOption249, poolName);
+    }
+
     public ISC(String config, String username, String password, ApplyMethod method, ArgumentParser parser) {
         super(config, username, password, method, parser);
     }
@@ -50,110 +56,30 @@ public class ISC extends outputFormatAbstract implements outputFormatInterface {
         if (withOption249) {
             results.add("option ms-classless-static-routes code 249 = array of unsigned integer 8;");
         }
-        StringBuilder opt121 = new StringBuilder("option rfc3442-classless-static-routes ");
-        StringBuilder opt249 = withOption249 ? new StringBuilder("option ms-classless-static-routes ") : null;
-        List<String> routes = parseHexToRoutes(aggregateHex);
-        for (int i = 0; i < routes.size(); i++) {
-            // Convert "network/mask via gateway" to ISC format
-            String[] parts = routes.get(i).split(" via ");
-            String[] netParts = parts[0].split("/");
-            int mask = Integer.parseInt(netParts[1]);
-            String[] destOctets = netParts[0].split("\\.");
-            StringBuilder iscRoute = new StringBuilder();
-            iscRoute.append(mask);
-            int significantOctets = mask == 0 ? 0 : (mask + 7) / 8;
-            for (int j = 0; j < significantOctets; j++) {
-                iscRoute.append(",").append(destOctets[j]);
+        RouteSet routeSet = getRoutes();
+        StringBuilder iscRoutes = new StringBuilder(routeSet.size() * 24);
+        for (int i = 0; i < routeSet.size(); i++) {
+            // Convert route to ISC format: mask, significant destination octets, gateway octets
+            if (i > 0) {
+                iscRoutes.append(",");
             }
-            String[] gwOctets = parts[1].split("\\.");
-            for (String gwOctet : gwOctets) {
-                iscRoute.append(",").append(gwOctet);
-            }
-            opt121.append(iscRoute);
-            if (withOption249) {
-                opt249.append(iscRoute);
+            int mask = routeSet.prefixLength(i);
+            iscRoutes.append(mask);
+            int destination = routeSet.prefix(i);
+            int significantOctets = RouteCodec.significantOctets(mask);
+            for (int j = 0; j < significantOctets; j++) {
+                iscRoutes.append(",").append((destination >>> (24 - 8 * j)) & 0xff);
             }
-            if (i < routes.size() - 1) {
-                opt121.append(",");
-                if (withOption249) {
-                    opt249.append(",");
-                }
+            int gateway = routeSet.gateway(i);
+            for (int j = 0; j < 4; j++) {
+                iscRoutes.append(",").append((gateway >>> (24 - 8 * j)) & 0xff);
             }
         }
-        results.add(opt121.toString());
+        results.add("option rfc3442-classless-static-routes " + iscRoutes);
         if (withOption249) {
-            results.add(opt249.toString());
+            results.add("option ms-classless-static-routes " + iscRoutes);
         }
 
         return results;
     }
-
-    /**
-     * Parses hexadecimal DHCP option string into route strings.
-     *
-     * @param aggregateHex Hexadecimal string of DHCP options.
-     * @return List of route strings (e.g., "192.168.1.0/24 via 10.0.0.1").
-     */
-    private List<String> parseHexToRoutes(String aggregateHex) {
-        List<String> routes = new ArrayList<>();
-        int index = 0;
-
-        while (index < aggregateHex.length()) {
-            // Read subnet mask (1 byte)
-            if (index + 2 > aggregateHex.length()) {
-                System.err.println("ERROR: Incomplete hex string at subnet mask");
-                break;
-            }
-            String maskHex = aggregateHex.substring(index, index + 2);
-            int subnetMask;
-            try {
-                subnetMask = Integer.parseInt(maskHex, 16);
-            } catch (NumberFormatException e) {
-                System.err.printf("ERROR: Invalid subnet mask in hex: %s%n", maskHex);
-                break;
-            }
-            if (subnetMask < 0 || subnetMask > 32) {
-                System.err.printf("ERROR: Invalid subnet mask in hex: %s%n", maskHex);
-                break;
-            }
-            index += 2;
-
-            // Calculate number of significant octets
-            int significantOctets = subnetMask == 0 ? 0 : (subnetMask + 7) / 8;
-
-            // Read destination network
-            int[] destination = new int[4];
-            for (int i = 0; i < significantOctets; i++) {
-                if (index + 2 > aggregateHex.length()) {
-                    System.err.println("ERROR: Incomplete hex string at destination");
-                    return routes;
-                }
-                String octet = aggregateHex.substring(index, index + 2);
-                destination[i] = Integer.parseInt(octet, 16);
-                index += 2;
-            }
-
-            // Read gateway (4 bytes)
-            int[] gateway = new int[4];
-            for (int i = 0; i < 4; i++) {
-                if (index + 2 > aggregateHex.length()) {
-                    System.err.println("ERROR: Incomplete hex string at gateway");
-                    return routes;
-                }
-                String octet = aggregateHex.substring(index, index + 2);
-                gateway[i] = Integer.parseInt(octet, 16);
-                index += 2;
-            }
-
-            // Format route as "network/mask via gateway"
-            String network = String.format("%d.%d.%d.%d/%d",
-                    destination[0], destination[1], destination[2], destination[3], subnetMask);
-            String gw = String.format("%d.%d.%d.%d",
-                    gateway[0], gateway[1], gateway[2], gateway[3]);
-            routes.add(String.format("%s via %s", network, gw));
-        }
-
-        return routes;
-    }
-
 }
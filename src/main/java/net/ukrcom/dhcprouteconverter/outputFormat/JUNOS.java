@@ -18,32 +18,31 @@ package net.ukrcom.dhcprouteconverter.outputFormat;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 import java.io.StringReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import net.ukrcom.dhcprouteconverter.ApplyMethod;
 import net.ukrcom.dhcprouteconverter.PoolDeviceConfig;
 import net.ukrcom.dhcprouteconverter.RouterDeviceConfig;
+import net.juniper.netconf.CommitException;
 import net.juniper.netconf.Device;
 import net.juniper.netconf.NetconfException;
 import net.juniper.netconf.XML;
 import net.ukrcom.dhcprouteconverter.ArgumentParser;
-import org.w3c.dom.DOMException;
+import net.ukrcom.dhcprouteconverter.GlobalConfig;
+import net.ukrcom.dhcprouteconverter.OptionChangePlan;
+import net.ukrcom.dhcprouteconverter.PoolSnapshotCache;
+import net.ukrcom.dhcprouteconverter.RouteSet;
 import org.xml.sax.SAXException;
 
 /**
@@ -52,14 +51,50 @@ import org.xml.sax.SAXException;
  */
 public class JUNOS extends outputFormatAbstract implements outputFormatInterface {
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private NetconfSessionPool sessionPool;
+
     public JUNOS(String aggregateHex, boolean withOption249, String poolName) {
         super(aggregateHex, withOption249, poolName);
     }
 
+    public JUNOS(RouteSet routes, boolean withOption249, String poolName) {
+        super(routes, withOption249, poolName);
+    }
+
     public JUNOS(String config, String username, String password, ApplyMethod method, ArgumentParser parser) {
         super(config, username, password, method, parser);
     }
 
+    /**
+     * Shares NETCONF sessions with other calls through a pool instead of
+     * opening and closing a session per call.
+     *
+     * @param sessionPool Session pool, or null to connect per call.
+     */
+    public void setSessionPool(NetconfSessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
+    /**
+     * Closes the pooled session to a router once it is no longer needed.
+     * Does nothing without a session pool.
+     *
+     * @param routerName Router name.
+     * @param deviceConfig Host and credentials of the router.
+     */
+    public void closeIdleSession(String routerName, RouterDeviceConfig deviceConfig) {
+        if (sessionPool != null) {
+            sessionPool.evict(hostnameOf(routerName, deviceConfig), deviceConfig.getUsername(), deviceConfig.getPassword());
+        }
+    }
+
     /**
      * Formats DHCP options for the specified format.
      *
@@ -94,113 +129,172 @@ public class JUNOS extends outputFormatAbstract implements outputFormatInterface
             System.err.println("ERROR: NETCONF method required for applying config");
             return;
         }
-        /*
+        // Пули застосовуються пакетно, по одному коміту на роутер: див. applyPlan()
+        System.err.println("ERROR: Router " + config + ": use applyPlan() to apply pool options");
+    }
+
+    /**
+     * Applies a change plan to a router with a single edit-config on the
+     * locked candidate configuration and a single commit. Only the options in
+     * the plan are sent; an empty plan does not open a session. If the edit or
+     * the commit fails, the candidate is discarded.
+     *
+     * @param routerName Router name.
+     * @param deviceConfig Host and credentials of the router.
+     * @param plan Option changes of the router's pools.
+     * @param confirmTimeout If positive, commit confirmed with this timeout in
+     * seconds: the router rolls the change back unless it is confirmed by a
+     * later commit.
+     * @return True if the change was committed.
+     */
+    public boolean applyPlan(String routerName, RouterDeviceConfig deviceConfig, OptionChangePlan plan, int confirmTimeout) {
+        if (method != ApplyMethod.NETCONF) {
+            System.err.println("ERROR: NETCONF method required for applying config to router " + routerName);
+            return false;
+        }
+        if (plan.isEmpty()) {
+            return true;
+        }
+
         Device device = null;
+        boolean locked = false;
+        // Сесію можна віддати в пул, лише якщо її стан відомий
+        boolean reusable = false;
         try {
-            // Налаштування підключення до роутера
-            device = new Device(config + ".ukrhub.net", username, password, null, 830);
-            device.connect();
+            device = openSession(routerName, deviceConfig);
+            locked = device.lockConfig();
+            reusable = true;
+            if (!locked) {
+                System.err.println("ERROR: Failed to lock candidate configuration on router " + routerName);
+                return false;
+            }
 
-            // Формуємо запит для редагування конфігурації
-            String editRequest = buildNetconfEditRequest(poolName, aggregateHex);
-            XML response = device.executeRPC(editRequest);
+            XML response = device.executeRPC(buildNetconfEditRequest(plan));
+            if (!response.toString().contains("<ok/>")) {
+                System.err.println("ERROR: Failed to apply config to router " + routerName + ": " + response.toString());
+                reusable = discardChanges(device, routerName);
+                return false;
+            }
 
-            // Перевіряємо відповідь
-            if (response.toString().contains("<ok/>")) {
-                System.out.println("Successfully applied config to pool: " + poolName);
-                // Коміт конфігурації
-                device.commit();
+            if (confirmTimeout > 0) {
+                device.commitConfirm(confirmTimeout);
             } else {
-                System.err.println("ERROR: Failed to apply config: " + response.toString());
+                device.commit();
             }
-
+            return true;
+        } catch (CommitException e) {
+            System.err.println("ERROR: Commit failed on router " + routerName + ": " + e.getMessage());
+            reusable = discardChanges(device, routerName);
         } catch (NetconfException e) {
-            System.err.println("ERROR: Failed to apply config to router " + config + ": " + e.getMessage());
+            System.err.println("ERROR: Failed to connect or execute NETCONF RPC on router " + routerName + ": " + e.getMessage());
+            reusable = false;
+        } catch (JSchException e) {
+            System.err.println("ERROR: Failed to connect to router " + routerName + ": " + e.getMessage());
+        } catch (SAXException | IOException e) {
+            System.err.println("ERROR: Failed to apply config to router " + routerName + ": " + e.getMessage());
+            discardChanges(device, routerName);
+            reusable = false;
         } finally {
             if (device != null) {
-                device.close();
+                if (locked) {
+                    try {
+                        device.unlockConfig();
+                    } catch (SAXException | IOException e) {
+                        System.err.println("WARNING: Failed to unlock candidate configuration on router " + routerName + ": " + e.getMessage());
+                        reusable = false;
+                    }
+                }
+                closeSession(device, reusable);
             }
         }
-         */
+        return false;
+    }
+
+    private boolean discardChanges(Device device, String routerName) {
+        if (device == null) {
+            return false;
+        }
+        try {
+            device.executeRPC("<rpc><discard-changes/></rpc>");
+            return true;
+        } catch (SAXException | IOException e) {
+            System.err.println("WARNING: Failed to discard candidate changes on router " + routerName + ": " + e.getMessage());
+            return false;
+        }
     }
 
     @Override
     public Map<String, PoolDeviceConfig> getConfig(String routerName, RouterDeviceConfig deviceConfig) {
+        String responseXml = fetchConfig(routerName, deviceConfig);
+        return responseXml != null ? parseConfig(responseXml, routerName) : new HashMap<>();
+    }
+
+    /**
+     * Fetches all address-assignment pools of a router over NETCONF.
+     *
+     * @param routerName Router name.
+     * @param deviceConfig Host and credentials of the router.
+     * @return Raw get-configuration response, or null if the router could not
+     * be reached (the error is printed).
+     */
+    public String fetchConfig(String routerName, RouterDeviceConfig deviceConfig) {
+        return fetchConfig(routerName, deviceConfig, null);
+    }
+
+    /**
+     * Fetches address-assignment pools of a router over NETCONF. With pool
+     * names the request filters on the router side: only those pools and
+     * only their family/inet/dhcp-attributes subtrees are returned.
+     *
+     * With --snapshot-cache the router's last commit is checked first; if it
+     * has not changed since the stored snapshot was taken with the same
+     * request, the snapshot is returned and get-configuration is not sent.
+     *
+     * @param routerName Router name.
+     * @param deviceConfig Host and credentials of the router.
+     * @param poolNames Pools to fetch; null or empty fetches every pool.
+     * @return Raw get-configuration response, or null if the router could not
+     * be reached (the error is printed).
+     */
+    public String fetchConfig(String routerName, RouterDeviceConfig deviceConfig, Collection<String> poolNames) {
         if (method != ApplyMethod.NETCONF) {
             System.err.println("ERROR: NETCONF method required for router " + routerName);
-            return new HashMap<>();
+            return null;
         }
 
-        Map<String, PoolDeviceConfig> pools = new HashMap<>();
+        String responseXml = null;
         Device device = null;
+        boolean reusable = false;
 
         try {
+            device = openSession(routerName, deviceConfig);
 
-            String hostname = routerName + ".ukrhub.net";
-
-            if (globalOptions.isDebug()) {
-                System.err.println("Starting NETCONF connection to router: "
-                        + routerName
-                        + " (" + hostname
-                        + " [" + deviceConfig.getUsername() + ", " + deviceConfig.getPassword() + "]"
-                        + ")");
-            }
-
-            // Вимкнути логи JSch
-            JSch.setLogger(new com.jcraft.jsch.Logger() {
-                @Override
-                public boolean isEnabled(int level) {
-                    return globalOptions.isDebug(); // Вимкнути всі логи JSch
-                }
-
-                @Override
-                public void log(int level, String message) {
-                    System.err.println("JSch [" + level + "]: " + message);
+            // Виконуємо запит для отримання конфігурації
+            String getRequest = poolNames == null || poolNames.isEmpty()
+                    ? buildNetconfGetAllPoolsRequest()
+                    : buildNetconfGetPoolsRequest(poolNames);
+            PoolSnapshotCache snapshots = globalOptions.getSnapshotCache() != null
+                    ? new PoolSnapshotCache(Path.of(globalOptions.getSnapshotCache()))
+                    : null;
+            String revision = snapshots != null ? fetchCommitRevision(device, routerName) : null;
+            if (revision != null) {
+                responseXml = snapshots.load(routerName, revision, getRequest);
+                if (responseXml != null) {
+                    if (globalOptions.isDebug()) {
+                        System.err.println("DEBUG: Router " + routerName + " unchanged since commit " + revision + ", using snapshot");
+                    }
+                    reusable = true;
+                    return responseXml;
                 }
-            });
-
-            java.util.Properties sshConfig = new java.util.Properties();
-
-            sshConfig.put("StrictHostKeyChecking", "no");
-            sshConfig.put("PreferredAuthentications", "password");
-
-            sshConfig.put("kex", "ecdh-sha2-nistp256,ecdh-sha2-nistp384,ecdh-sha2-nistp521,diffie-hellman-group-exchange-sha256");
-            sshConfig.put("server_host_key", "ecdsa-sha2-nistp256,ecdsa-sha2-nistp384,ecdsa-sha2-nistp521,rsa-sha2-512,rsa-sha2-256");
-            sshConfig.put("cipher.s2c", "aes128-gcm@openssh.com,aes256-gcm@openssh.com,aes128-ctr,aes192-ctr,aes256-ctr");
-            sshConfig.put("cipher.c2s", "aes128-gcm@openssh.com,aes256-gcm@openssh.com,aes128-ctr,aes192-ctr,aes256-ctr");
-            sshConfig.put("mac.s2c", "hmac-sha2-256,hmac-sha2-512");
-            sshConfig.put("mac.c2s", "hmac-sha2-256,hmac-sha2-512");
-
-            JSch jsch = new JSch();
-            com.jcraft.jsch.Session session;
-            session = jsch.getSession(deviceConfig.getUsername(), hostname, 830);
-            session.setPassword(deviceConfig.getPassword());
-            session.setConfig(sshConfig);
-
-            // Налаштування підключення до роутера
-            device = net.juniper.netconf.Device.builder()
-                    .hostName(hostname)
-                    .userName(deviceConfig.getUsername())
-                    .password(deviceConfig.getPassword())
-                    .strictHostKeyChecking(false)
-                    .sshClient(jsch)
-                    .build();
-            if (globalOptions.isDebug()) {
-                System.err.println("Device: " + device.toString());
-            }
-
-            device.connect();
-            if (globalOptions.isDebug()) {
-                System.err.println("Device isConnected: " + device.isConnected());
             }
 
-            // Виконуємо запит для отримання конфігурації
-            String getRequest = buildNetconfGetAllPoolsRequest();
             XML response = device.executeRPC(getRequest);
 
-            // Парсимо відповідь
-            String responseXml = response.toString();
-            pools.putAll(parseNetconfResponse(responseXml, routerName));
+            responseXml = response.toString();
+            if (revision != null) {
+                snapshots.store(routerName, revision, getRequest, responseXml);
+            }
+            reusable = true;
 
         } catch (NetconfException e) {
             System.err.println("ERROR: Failed to connect or execute NETCONF RPC on router " + routerName + ": " + e.getMessage());
@@ -210,11 +304,224 @@ public class JUNOS extends outputFormatAbstract implements outputFormatInterface
             Logger.getLogger(JUNOS.class.getName()).log(Level.SEVERE, null, ex);
         } finally {
             if (device != null) {
-                device.close();
+                closeSession(device, reusable);
             }
         }
 
-        return pools;
+        return responseXml;
+    }
+
+    /**
+     * Reads the last commit of a router with get-commit-information, a much
+     * smaller reply than the pool configuration.
+     *
+     * @param device Connected device.
+     * @param routerName Router name for diagnostics.
+     * @return Revision of the last commit, or null if it cannot be read (the
+     * snapshot is then neither used nor stored).
+     */
+    private String fetchCommitRevision(Device device, String routerName) {
+        try {
+            String revision = parseCommitRevision(device.executeRPC("<rpc><get-commit-information/></rpc>").toString());
+            if (revision == null) {
+                System.err.println("WARNING: No commit history in NETCONF response for router " + routerName + ", snapshot not used");
+            }
+            return revision;
+        } catch (SAXException | IOException | XMLStreamException e) {
+            System.err.println("WARNING: Failed to read commit information of router " + routerName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Extracts the revision of the latest commit (sequence number 0) from a
+     * get-commit-information reply: commit time, user and client. Junos
+     * renumbers older commits on every commit and a rollback is a new
+     * commit, so the latest commit identifies the configuration.
+     *
+     * @param responseXml Reply text.
+     * @return Revision, or null if the reply has no commit history.
+     * @throws XMLStreamException If the reply is not well-formed.
+     */
+    static String parseCommitRevision(String responseXml) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(responseXml));
+        try {
+            StringBuilder text = new StringBuilder(32);
+            String dateTime = null;
+            String user = null;
+            String client = null;
+            boolean inHistory = false;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        text.setLength(0);
+                        if (reader.getLocalName().equals("commit-history")) {
+                            inHistory = true;
+                            dateTime = user = client = null;
+                        } else if (inHistory && reader.getLocalName().equals("date-time")) {
+                            // junos:seconds не залежить від формату дати
+                            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                                if (reader.getAttributeLocalName(i).equals("seconds")) {
+                                    dateTime = reader.getAttributeValue(i);
+                                }
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                        if (inHistory) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (!inHistory) {
+                            continue;
+                        }
+                        switch (reader.getLocalName()) {
+                            case "date-time" -> {
+                                if (dateTime == null) {
+                                    dateTime = text.toString().trim();
+                                }
+                            }
+                            case "user" ->
+                                user = text.toString().trim();
+                            case "client" ->
+                                client = text.toString().trim();
+                            case "commit-history" -> {
+                                // Перший запис — останній коміт
+                                return dateTime == null || dateTime.isEmpty() ? null
+                                        : dateTime + " " + (user != null ? user : "") + " " + (client != null ? client : "");
+                            }
+                            default -> {
+                            }
+                        }
+                        text.setLength(0);
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Takes a session to a router from the session pool, or opens one if
+     * there is no pool.
+     *
+     * @param routerName Router name.
+     * @param deviceConfig Host and credentials of the router.
+     * @return Connected device; return it with {@link #closeSession}.
+     * @throws NetconfException If the session cannot be established.
+     * @throws JSchException If the SSH client cannot be set up.
+     */
+    private Device openSession(String routerName, RouterDeviceConfig deviceConfig) throws NetconfException, JSchException {
+        if (sessionPool == null) {
+            return connect(routerName, deviceConfig);
+        }
+        return sessionPool.acquire(hostnameOf(routerName, deviceConfig), deviceConfig.getUsername(), deviceConfig.getPassword(),
+                () -> connect(routerName, deviceConfig));
+    }
+
+    /**
+     * @param device Session from {@link #openSession}.
+     * @param reusable True if the session is in a clean state and may serve
+     * the next call; otherwise it is closed.
+     */
+    private void closeSession(Device device, boolean reusable) {
+        if (sessionPool == null) {
+            BastionTunnels.closeDevice(device);
+        } else if (reusable) {
+            sessionPool.release(device);
+        } else {
+            sessionPool.invalidate(device);
+        }
+    }
+
+    /**
+     * Opens a NETCONF session to a router, directly or through its bastion.
+     *
+     * @param routerName Router name.
+     * @param deviceConfig Host and credentials of the router.
+     * @return Connected device; the caller closes it with
+     * {@link BastionTunnels#closeDevice}.
+     * @throws NetconfException If the session cannot be established.
+     * @throws JSchException If the SSH client cannot be set up.
+     */
+    private Device connect(String routerName, RouterDeviceConfig deviceConfig) throws NetconfException, JSchException {
+        String hostname = hostnameOf(routerName, deviceConfig);
+
+        if (globalOptions.isDebug()) {
+            System.err.println("Starting NETCONF connection to router: "
+                    + routerName
+                    + " (" + hostname
+                    + " [" + deviceConfig.getUsername() + ", " + deviceConfig.getPassword() + "]"
+                    + ")");
+        }
+
+        SshClientFactory ssh = SshClientFactory.shared(globalOptions);
+        int timeoutMillis = globalOptions.getNetconfTimeout() * 1000;
+        if (deviceConfig.getBastion() != null) {
+            // Через bastion: сесія йде окремим каналом direct-tcpip по його SSH-з'єднанню
+            return BastionTunnels.shared().connect(ssh, deviceConfig.getBastion(), hostname, 830, timeoutMillis, sessionPool,
+                    (client, host, port) -> openDevice(routerName, deviceConfig, ssh, client, host, port));
+        }
+        // Адреса, знайдена заздалегідь, знімає DNS-запит з підключення
+        return openDevice(routerName, deviceConfig, ssh, ssh.client(),
+                deviceConfig.getAddress() != null ? deviceConfig.getAddress() : hostname, 830);
+    }
+
+    private static String hostnameOf(String routerName, RouterDeviceConfig deviceConfig) {
+        return deviceConfig.getHostname() != null
+                ? deviceConfig.getHostname()
+                : routerName + GlobalConfig.DEFAULT_DOMAIN_SUFFIX;
+    }
+
+    private Device openDevice(String routerName, RouterDeviceConfig deviceConfig, SshClientFactory ssh, JSch client,
+            String hostname, int port) throws NetconfException {
+        // Налаштування підключення до роутера
+        Device device = net.juniper.netconf.Device.builder()
+                .hostName(hostname)
+                .port(port)
+                .userName(deviceConfig.getUsername())
+                .password(deviceConfig.getPassword())
+                .strictHostKeyChecking(false)
+                .sshClient(client)
+                .connectionTimeout(globalOptions.getNetconfTimeout() * 1000)
+                .commandTimeout(globalOptions.getNetconfTimeout() * 1000)
+                .build();
+        if (globalOptions.isDebug()) {
+            System.err.println("Device: " + device.toString());
+        }
+
+        long started = System.nanoTime();
+        try {
+            device.connect();
+        } catch (NetconfException e) {
+            device.close();
+            throw e;
+        }
+        long handshake = System.nanoTime() - started;
+        ssh.recordHandshake(handshake);
+        if (globalOptions.isDebug()) {
+            com.jcraft.jsch.HostKey hostKey = device.getSshSession() != null ? device.getSshSession().getHostKey() : null;
+            System.err.println("DEBUG: NETCONF session to router " + routerName + " established in " + handshake / 1_000_000 + " ms"
+                    + (hostKey != null ? " (host key " + hostKey.getType() + ")" : "")
+                    + (deviceConfig.getBastion() != null ? " via bastion " + deviceConfig.getBastion() : ""));
+        }
+        return device;
+    }
+
+    /**
+     * Parses the pools out of a get-configuration response.
+     *
+     * @param responseXml Response returned by {@link #fetchConfig}.
+     * @param routerName Router name for diagnostics.
+     * @return Pools with a default gateway, keyed by pool name.
+     */
+    public Map<String, PoolDeviceConfig> parseConfig(String responseXml, String routerName) {
+        return parseNetconfResponse(responseXml, routerName);
     }
 
     private String buildNetconfGetAllPoolsRequest() {
@@ -231,42 +538,123 @@ public class JUNOS extends outputFormatAbstract implements outputFormatInterface
                 + "</rpc>";
     }
 
-    private String buildNetconfEditRequest(String localPoolName, String hexValue) {
-        return "<rpc>"
-                + "<edit-config>"
-                + "<target>"
-                + "<candidate/>"
-                + "</target>"
-                + "<config>"
-                + "<configuration>"
-                + "<access>"
-                + "<address-assignment>"
-                + "<pool>"
-                + "<name>" + localPoolName + "</name>"
-                + "<family>"
-                + "<inet>"
-                + "<dhcp-attributes>"
-                + "<option>"
-                + "<id>121</id>"
-                + "<hex-string>" + hexValue + "</hex-string>"
-                + "</option>"
-                + (withOption249
-                        ? "<option>"
-                        + "<id>249</id>"
-                        + "<hex-string>" + hexValue + "</hex-string>"
-                        + "</option>" : "")
-                + "</dhcp-attributes>"
-                + "</inet>"
-                + "</family>"
-                + "</pool>"
-                + "</address-assignment>"
-                + "</access>"
-                + "</configuration>"
-                + "</config>"
-                + "</edit-config>"
-                + "</rpc>";
+    /**
+     * Builds a get-configuration request for the DHCP attributes of the named
+     * pools only.
+     *
+     * @param poolNames Pool names.
+     * @return RPC text.
+     */
+    static String buildNetconfGetPoolsRequest(Collection<String> poolNames) {
+        StringBuilder request = new StringBuilder(96 + poolNames.size() * 96);
+        request.append("<rpc>")
+                .append("<get-configuration>")
+                .append("<configuration>")
+                .append("<access>")
+                .append("<address-assignment>");
+        for (String localPoolName : poolNames) {
+            request.append("<pool>")
+                    .append("<name>");
+            appendXmlText(localPoolName, request);
+            request.append("</name>")
+                    .append("<family>")
+                    .append("<inet>")
+                    .append("<dhcp-attributes/>")
+                    .append("</inet>")
+                    .append("</family>")
+                    .append("</pool>");
+        }
+        return request.append("</address-assignment>")
+                .append("</access>")
+                .append("</configuration>")
+                .append("</get-configuration>")
+                .append("</rpc>")
+                .toString();
     }
 
+    private static void appendXmlText(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' ->
+                    out.append("&amp;");
+                case '<' ->
+                    out.append("&lt;");
+                case '>' ->
+                    out.append("&gt;");
+                default ->
+                    out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Builds one edit-config request on the candidate configuration with the
+     * option changes of a plan. Added and replaced options are merged, deleted
+     * ones carry operation="delete".
+     *
+     * @param plan Option changes, grouped by pool.
+     * @return RPC text.
+     */
+    static String buildNetconfEditRequest(OptionChangePlan plan) {
+        StringBuilder request = new StringBuilder(160 + plan.getChanges().size() * 160);
+        request.append("<rpc>")
+                .append("<edit-config>")
+                .append("<target>")
+                .append("<candidate/>")
+                .append("</target>")
+                .append("<config>")
+                .append("<configuration>")
+                .append("<access>")
+                .append("<address-assignment>");
+        List<OptionChangePlan.Change> changes = plan.getChanges();
+        for (int i = 0; i < changes.size();) {
+            String localPoolName = changes.get(i).getPoolName();
+            request.append("<pool>")
+                    .append("<name>");
+            appendXmlText(localPoolName, request);
+            request.append("</name>")
+                    .append("<family>")
+                    .append("<inet>")
+                    .append("<dhcp-attributes>");
+            // Зміни одного пулу йдуть у плані поспіль
+            for (; i < changes.size() && changes.get(i).getPoolName().equals(localPoolName); i++) {
+                appendOption(changes.get(i), request);
+            }
+            request.append("</dhcp-attributes>")
+                    .append("</inet>")
+                    .append("</family>")
+                    .append("</pool>");
+        }
+        return request.append("</address-assignment>")
+                .append("</access>")
+                .append("</configuration>")
+                .append("</config>")
+                .append("</edit-config>")
+                .append("</rpc>")
+                .toString();
+    }
+
+    private static void appendOption(OptionChangePlan.Change change, StringBuilder out) {
+        if (change.getOperation() == OptionChangePlan.Operation.DELETE) {
+            out.append("<option operation=\"delete\">")
+                    .append("<name>").append(change.getCode()).append("</name>")
+                    .append("</option>");
+            return;
+        }
+        out.append("<option>")
+                .append("<name>").append(change.getCode()).append("</name>")
+                .append("<hex-string>").append(change.getRoutes().toHex()).append("</hex-string>")
+                .append("</option>");
+    }
+
+    /**
+     * Parses the pools out of a get-configuration response in one streaming
+     * pass. For every pool with a family/inet block the pool name, the first
+     * dhcp-attributes router name and the option 121/249 hex strings are
+     * collected; comments are skipped by the parser and no document tree is
+     * built, so the cost grows linearly with the response.
+     */
     private Map<String, PoolDeviceConfig> parseNetconfResponse(String responseXml, String routerName) {
         Map<String, PoolDeviceConfig> pools = new HashMap<>();
         if (responseXml == null || responseXml.trim().isEmpty()) {
@@ -274,68 +662,147 @@ public class JUNOS extends outputFormatAbstract implements outputFormatInterface
             return pools;
         }
 
+        XMLStreamReader reader = null;
         try {
-            String cleanResponseXml = responseXml.replaceAll("<!--.*?-->", "");
-
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new InputSource(new StringReader(cleanResponseXml)));
-
-            XPathFactory xPathfactory = XPathFactory.newInstance();
-            XPath xpath = xPathfactory.newXPath();
-
-            // Витягуємо всі pool/name
-            XPathExpression poolNamesExpr = xpath.compile("//pool[family/inet]/name");
-            NodeList poolNameNodes = (NodeList) poolNamesExpr.evaluate(doc, XPathConstants.NODESET);
-
-            if (globalOptions.isDebug()) {
-                System.err.println("Found " + poolNameNodes.getLength() + " pool(s) in NETCONF response for " + routerName);
-            }
-
-            for (int i = 0; i < poolNameNodes.getLength(); i++) {
-
-                String localPoolName = poolNameNodes.item(i).getTextContent();
-                if (localPoolName == null || localPoolName.trim().isEmpty()) {
-                    if (globalOptions.isDebug()) {
-                        System.err.println("WARNING: Pool #" + (i + 1) + " has empty <name> in NETCONF response for " + routerName);
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(responseXml));
+
+            // Шлях елемента відносно поточного <pool>, напр. "family/inet/dhcp-attributes/option/name"
+            StringBuilder path = new StringBuilder(64);
+            int[] pathLengths = new int[16];
+            int poolDepth = -1;
+            int depth = 0;
+            StringBuilder text = new StringBuilder(64);
+            String localPoolName = null;
+            String defaultGateway = null;
+            String option121 = null;
+            String option249 = null;
+            String optionName = null;
+            String optionHex = null;
+            boolean hasInet = false;
+            int poolCount = 0;
+            int poolIndex = 0;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        String element = reader.getLocalName();
+                        depth++;
+                        text.setLength(0);
+                        if (poolDepth < 0) {
+                            if (element.equals("pool")) {
+                                poolDepth = depth;
+                                path.setLength(0);
+                                localPoolName = defaultGateway = option121 = option249 = null;
+                                hasInet = false;
+                                poolIndex++;
+                            }
+                            continue;
+                        }
+                        int level = depth - poolDepth - 1;
+                        if (level >= pathLengths.length) {
+                            pathLengths = java.util.Arrays.copyOf(pathLengths, level * 2);
+                        }
+                        pathLengths[level] = path.length();
+                        if (path.length() > 0) {
+                            path.append('/');
+                        }
+                        path.append(element);
+                        if (pathEquals(path, "family/inet")) {
+                            hasInet = true;
+                        } else if (pathEquals(path, "family/inet/dhcp-attributes/option")) {
+                            optionName = optionHex = null;
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                        if (poolDepth >= 0) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (poolDepth < 0) {
+                            depth--;
+                            continue;
+                        }
+                        if (depth == poolDepth) {
+                            if (hasInet) {
+                                poolCount++;
+                                addParsedPool(pools, routerName, poolIndex, localPoolName, defaultGateway, option121, option249);
+                            }
+                            poolDepth = -1;
+                        } else {
+                            if (pathEquals(path, "name")) {
+                                localPoolName = text.toString();
+                            } else if (pathEquals(path, "family/inet/dhcp-attributes/router/name")) {
+                                if (defaultGateway == null) {
+                                    defaultGateway = text.toString().trim();
+                                }
+                            } else if (pathEquals(path, "family/inet/dhcp-attributes/option/name")) {
+                                optionName = text.toString().trim();
+                            } else if (pathEquals(path, "family/inet/dhcp-attributes/option/hex-string")) {
+                                optionHex = text.toString().trim();
+                            } else if (pathEquals(path, "family/inet/dhcp-attributes/option")) {
+                                if ("121".equals(optionName) && option121 == null) {
+                                    option121 = optionHex;
+                                } else if ("249".equals(optionName) && option249 == null) {
+                                    option249 = optionHex;
+                                }
+                            }
+                            path.setLength(pathLengths[depth - poolDepth - 1]);
+                        }
+                        depth--;
+                        text.setLength(0);
+                    }
+                    default -> {
                     }
-                    continue;
-                }
-
-                // Витягуємо default-gateway
-                XPathExpression routerExpr = xpath.compile(
-                        String.format("//pool[name='%s']/family/inet/dhcp-attributes/router/name", localPoolName)
-                );
-                String defaultGateway = (String) routerExpr.evaluate(doc, XPathConstants.STRING);
-
-                // Витягуємо опцію 121 (якщо потрібно)
-                XPathExpression option121Expr = xpath.compile(
-                        String.format("//pool[name='%s']/family/inet/dhcp-attributes/option[name='121']/hex-string", localPoolName)
-                );
-                String option121 = (String) option121Expr.evaluate(doc, XPathConstants.STRING);
-
-                if (globalOptions.isDebug()) {
-                    System.err.println("Parsed pool: " + localPoolName + ", default-gateway: "
-                            + (defaultGateway != null ? defaultGateway : "not set")
-                            + ", option 121: " + (option121 != null ? option121 : "not set"));
                 }
+            }
 
-                if (defaultGateway != null && !defaultGateway.trim().isEmpty()) {
-                    PoolDeviceConfig poolConfig = new PoolDeviceConfig(defaultGateway, null, option121);
-                    // Можна додати option121 до PoolDeviceConfig, якщо потрібно
-                    pools.put(localPoolName, poolConfig);
-                } else {
-                    System.err.println("WARNING: Pool " + localPoolName + " has no default-gateway in NETCONF response for " + routerName);
-                }
+            if (globalOptions.isDebug()) {
+                System.err.println("Found " + poolCount + " pool(s) in NETCONF response for " + routerName);
             }
-        } catch (IOException | ParserConfigurationException | DOMException | SAXException e) {
+        } catch (XMLStreamException e) {
             System.err.println("ERROR: Failed to parse NETCONF response for router " + routerName + ": " + e.getMessage());
-        } catch (XPathExpressionException e) {
-            System.err.println("ERROR: XPath Expression Exception for router " + routerName + ": " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // нічого не тримає, крім рядка
+                }
+            }
         }
         return pools;
     }
 
+    private void addParsedPool(Map<String, PoolDeviceConfig> pools, String routerName, int poolIndex, String localPoolName,
+            String defaultGateway, String option121, String option249) {
+        if (localPoolName == null || localPoolName.trim().isEmpty()) {
+            if (globalOptions.isDebug()) {
+                System.err.println("WARNING: Pool #" + poolIndex + " has empty <name> in NETCONF response for " + routerName);
+            }
+            return;
+        }
+
+        if (globalOptions.isDebug()) {
+            System.err.println("Parsed pool: " + localPoolName + ", default-gateway: "
+                    + (defaultGateway != null ? defaultGateway : "not set")
+                    + ", option 121: " + (option121 != null ? option121 : "not set")
+                    + ", option 249: " + (option249 != null ? option249 : "not set"));
+        }
+
+        if (defaultGateway != null && !defaultGateway.isEmpty()) {
+            PoolDeviceConfig poolConfig = new PoolDeviceConfig(defaultGateway, null, option121);
+            poolConfig.setOption249(option249);
+            pools.putIfAbsent(localPoolName, poolConfig);
+        } else {
+            System.err.println("WARNING: Pool " + localPoolName + " has no default-gateway in NETCONF response for " + routerName);
+        }
+    }
+
+    private static boolean pathEquals(StringBuilder path, String expected) {
+        return path.length() == expected.length() && path.indexOf(expected) == 0;
+    }
+
 }
 
 /*
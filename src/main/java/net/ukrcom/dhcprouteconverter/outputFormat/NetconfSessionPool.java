@@ -0,0 +1,268 @@
+/*
+ * Copyright 2025 ukr-com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import com.jcraft.jsch.JSchException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import net.juniper.netconf.Device;
+import net.juniper.netconf.NetconfException;
+
+/**
+ * Keeps authenticated NETCONF sessions open between RPCs of the same run, so
+ * that reading a router and then applying to it costs one SSH handshake.
+ * Sessions are keyed by host name and credentials and lent to one caller at
+ * a time; a returned session waits idle until it is borrowed again, expires
+ * after the idle TTL or the pool is closed.
+ *
+ * Before an idle session is lent again it is checked: it must still be
+ * connected and answer a cheap RPC within the command timeout. A session
+ * that fails the check is closed and a new one is opened.
+ */
+public class NetconfSessionPool implements AutoCloseable {
+
+    public static final int DEFAULT_IDLE_TTL_SECONDS = 300;
+    // Найдешевший запит, на який роутер відповідає
+    private static final String PROBE_RPC = "<get-system-uptime-information/>";
+
+    /**
+     * Opens a new session when the pool has none to lend.
+     */
+    @FunctionalInterface
+    interface Connector {
+
+        Device connect() throws NetconfException, JSchException;
+    }
+
+    private final int maxIdle;
+    private final long idleTtlNanos;
+    private final Map<Key, Idle> idle = new LinkedHashMap<>();
+    private final Map<Device, Key> leased = new IdentityHashMap<>();
+    private boolean closed;
+    private long opened;
+    private long reused;
+
+    /**
+     * @param maxIdle Maximum number of idle sessions; a session returned to a
+     * full pool is closed.
+     * @param idleTtlSeconds Idle sessions older than this are closed instead
+     * of being lent.
+     */
+    public NetconfSessionPool(int maxIdle, int idleTtlSeconds) {
+        this.maxIdle = maxIdle;
+        this.idleTtlNanos = idleTtlSeconds * 1_000_000_000L;
+    }
+
+    /**
+     * Lends an idle session of the host and credentials, or opens a new one.
+     *
+     * @param hostname Router host name.
+     * @param username SSH user name.
+     * @param password SSH password.
+     * @param connector Opens a connected session.
+     * @return Session to return with {@link #release} or {@link #invalidate}.
+     * @throws NetconfException If a new session cannot be established.
+     * @throws JSchException If the SSH client cannot be set up.
+     */
+    Device acquire(String hostname, String username, String password, Connector connector)
+            throws NetconfException, JSchException {
+        Key key = new Key(hostname, username, password);
+        Idle candidate;
+        synchronized (this) {
+            candidate = idle.remove(key);
+        }
+        if (candidate != null) {
+            if (System.nanoTime() - candidate.since <= idleTtlNanos && isHealthy(candidate.device)) {
+                synchronized (this) {
+                    leased.put(candidate.device, key);
+                    reused++;
+                }
+                return candidate.device;
+            }
+            BastionTunnels.closeDevice(candidate.device);
+        }
+        Device device = connector.connect();
+        synchronized (this) {
+            leased.put(device, key);
+            opened++;
+        }
+        return device;
+    }
+
+    /**
+     * Returns a session in a clean state (no lock held, no uncommitted
+     * changes) for reuse.
+     *
+     * @param device Session from {@link #acquire}.
+     */
+    void release(Device device) {
+        Device evicted = device;
+        synchronized (this) {
+            Key key = leased.remove(device);
+            if (key != null && !closed && idle.size() < maxIdle) {
+                Idle previous = idle.put(key, new Idle(device, System.nanoTime()));
+                evicted = previous != null ? previous.device : null;
+            }
+        }
+        if (evicted != null) {
+            BastionTunnels.closeDevice(evicted);
+        }
+    }
+
+    /**
+     * Closes a session that failed or whose state is unknown.
+     *
+     * @param device Session from {@link #acquire}.
+     */
+    void invalidate(Device device) {
+        synchronized (this) {
+            leased.remove(device);
+        }
+        BastionTunnels.closeDevice(device);
+    }
+
+    /**
+     * Closes the idle session of the host and credentials, if there is one.
+     * Called after the last call to a router, so that its session does not
+     * stay open until the pool is closed.
+     *
+     * @param hostname Router host name.
+     * @param username SSH user name.
+     * @param password SSH password.
+     */
+    void evict(String hostname, String username, String password) {
+        Idle session;
+        synchronized (this) {
+            session = idle.remove(new Key(hostname, username, password));
+        }
+        if (session != null) {
+            BastionTunnels.closeDevice(session.device);
+        }
+    }
+
+    /**
+     * Closes the idle session that has waited longest among those accepted
+     * by the filter.
+     *
+     * @param filter Selects the sessions that may be closed.
+     * @return True if a session was closed.
+     */
+    boolean evictOldest(Predicate<Device> filter) {
+        Device evicted = null;
+        synchronized (this) {
+            // Сесії повертаються в кінець, тож найстаріша стоїть першою
+            for (Iterator<Idle> it = idle.values().iterator(); it.hasNext();) {
+                Device device = it.next().device;
+                if (filter.test(device)) {
+                    it.remove();
+                    evicted = device;
+                    break;
+                }
+            }
+        }
+        if (evicted == null) {
+            return false;
+        }
+        BastionTunnels.closeDevice(evicted);
+        return true;
+    }
+
+    /**
+     * @return Number of sessions opened by the pool.
+     */
+    public synchronized long getOpened() {
+        return opened;
+    }
+
+    /**
+     * @return Number of times an idle session was lent again.
+     */
+    public synchronized long getReused() {
+        return reused;
+    }
+
+    /**
+     * Closes the idle sessions. Sessions still lent are closed when they are
+     * returned.
+     */
+    @Override
+    public void close() {
+        List<Idle> sessions;
+        synchronized (this) {
+            closed = true;
+            sessions = new ArrayList<>(idle.values());
+            idle.clear();
+        }
+        for (Idle session : sessions) {
+            BastionTunnels.closeDevice(session.device);
+        }
+    }
+
+    private static boolean isHealthy(Device device) {
+        if (!device.isConnected()) {
+            return false;
+        }
+        try {
+            // Keepalive лише ставиться в чергу; RPC чекає відповіді, тож напіввідкрите з'єднання не пройде
+            device.executeRPC(PROBE_RPC);
+            return true;
+        } catch (Exception e) {
+            // Обірване з'єднання: відкриємо нове
+            return false;
+        }
+    }
+
+    private static final class Idle {
+
+        private final Device device;
+        private final long since;
+
+        Idle(Device device, long since) {
+            this.device = device;
+            this.since = since;
+        }
+    }
+
+    private static final class Key {
+
+        private final String hostname;
+        private final String username;
+        private final String password;
+
+        Key(String hostname, String username, String password) {
+            this.hostname = hostname;
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other && hostname.equals(other.hostname)
+                    && Objects.equals(username, other.username) && Objects.equals(password, other.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hostname, username, password);
+        }
+    }
+}
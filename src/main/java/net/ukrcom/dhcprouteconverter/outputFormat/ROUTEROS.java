@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 import net.ukrcom.dhcprouteconverter.ApplyMethod;
 import net.ukrcom.dhcprouteconverter.ArgumentParser;
+import net.ukrcom.dhcprouteconverter.RouteSet;
 
 /**
  *
@@ -30,6 +31,10 @@ public class ROUTEROS extends outputFormatAbstract implements outputFormatInterf
         super(aggregateHex, withOption249, poolName);
     }
 
+    public ROUTEROS(RouteSet routes, boolean withOption249, String poolName) {
+        super(routes, withOption249, poolName);
+    }
+
     public ROUTEROS(String config, String username, String password, ApplyMethod method, ArgumentParser parser) {
         super(config, username, password, method, parser);
     }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2025 ukr-com.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import com.jcraft.jsch.JSch;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.Security;
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import net.ukrcom.dhcprouteconverter.ArgumentParser;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * One SSH client for all NETCONF sessions of a run. The crypto providers, the
+ * JSch algorithm preferences and the JSch logger are set up once, before the
+ * first router is contacted, instead of on every connection; the primitives
+ * used by the handshake are touched up front so that their classes and
+ * providers are not loaded in the middle of a fan-out.
+ *
+ * Curve25519 key exchange and Ed25519 host keys come first by default: they
+ * are much cheaper than NIST ECDH and group-exchange DH, which are kept as
+ * fallbacks for older routers.
+ *
+ * The factory also records how long every handshake (TCP, key exchange,
+ * authentication and NETCONF hello) took.
+ */
+public final class SshClientFactory {
+
+    public static final String DEFAULT_KEX = "curve25519-sha256,curve25519-sha256@libssh.org,"
+            + "ecdh-sha2-nistp256,ecdh-sha2-nistp384,ecdh-sha2-nistp521,diffie-hellman-group-exchange-sha256";
+    public static final String DEFAULT_HOST_KEY = "ssh-ed25519,"
+            + "ecdsa-sha2-nistp256,ecdsa-sha2-nistp384,ecdsa-sha2-nistp521,rsa-sha2-512,rsa-sha2-256";
+    private static final String CIPHERS = "aes128-gcm@openssh.com,aes256-gcm@openssh.com,aes128-ctr,aes192-ctr,aes256-ctr";
+    private static final String MACS = "hmac-sha2-256,hmac-sha2-512";
+
+    private static SshClientFactory shared;
+
+    private final JSch client;
+    private long handshakes;
+    private long handshakeNanos;
+    private long maxHandshakeNanos;
+
+    private SshClientFactory(ArgumentParser options) {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+
+        JSch.setConfig("kex", options.getSshKex() != null ? options.getSshKex() : DEFAULT_KEX);
+        JSch.setConfig("server_host_key", options.getSshHostKey() != null ? options.getSshHostKey() : DEFAULT_HOST_KEY);
+        JSch.setConfig("cipher.s2c", CIPHERS);
+        JSch.setConfig("cipher.c2s", CIPHERS);
+        JSch.setConfig("mac.s2c", MACS);
+        JSch.setConfig("mac.c2s", MACS);
+        JSch.setConfig("PreferredAuthentications", "password");
+
+        boolean debug = options.isDebug();
+        JSch.setLogger(new com.jcraft.jsch.Logger() {
+            @Override
+            public boolean isEnabled(int level) {
+                return debug;
+            }
+
+            @Override
+            public void log(int level, String message) {
+                System.err.println("JSch [" + level + "]: " + message);
+            }
+        });
+
+        warmUp(debug);
+        this.client = new JSch();
+    }
+
+    /**
+     * Returns the client of the run, setting it up on the first call. Later
+     * calls ignore their options.
+     *
+     * @param options Command-line options: --ssh-kex, --ssh-host-key,
+     * --debug.
+     * @return Shared factory.
+     */
+    public static synchronized SshClientFactory shared(ArgumentParser options) {
+        if (shared == null) {
+            shared = new SshClientFactory(options);
+        }
+        return shared;
+    }
+
+    private static void warmUp(boolean debug) {
+        long started = System.nanoTime();
+        try {
+            new SecureRandom().nextBytes(new byte[32]);
+            KeyAgreement.getInstance("X25519");
+            KeyAgreement.getInstance("ECDH");
+            java.security.Signature.getInstance("Ed25519");
+            java.security.Signature.getInstance("SHA256withECDSA");
+            Cipher.getInstance("AES/GCM/NoPadding");
+            Mac.getInstance("HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            // JSch сам відкине алгоритми, яких немає
+            System.err.println("WARNING: SSH crypto warm-up failed: " + e.getMessage());
+        }
+        if (debug) {
+            System.err.println("DEBUG: SSH crypto providers ready in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * @return JSch instance shared by all sessions; JSch opens a separate
+     * session per connection.
+     */
+    public JSch client() {
+        return client;
+    }
+
+    /**
+     * Records the duration of one successful handshake.
+     *
+     * @param nanos Duration in nanoseconds.
+     */
+    public synchronized void recordHandshake(long nanos) {
+        handshakes++;
+        handshakeNanos += nanos;
+        maxHandshakeNanos = Math.max(maxHandshakeNanos, nanos);
+    }
+
+    /**
+     * @return Number of recorded handshakes.
+     */
+    public synchronized long getHandshakes() {
+        return handshakes;
+    }
+
+    /**
+     * @return Total duration of the recorded handshakes, in nanoseconds.
+     */
+    public synchronized long getHandshakeNanos() {
+        return handshakeNanos;
+    }
+
+    /**
+     * @return Longest recorded handshake, in nanoseconds.
+     */
+    public synchronized long getMaxHandshakeNanos() {
+        return maxHandshakeNanos;
+    }
+}
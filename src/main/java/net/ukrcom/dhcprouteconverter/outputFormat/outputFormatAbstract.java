@@ -22,6 +22,8 @@ import java.util.Map;
 import net.ukrcom.dhcprouteconverter.ApplyMethod;
 import net.ukrcom.dhcprouteconverter.ArgumentParser;
 import net.ukrcom.dhcprouteconverter.PoolDeviceConfig;
+import net.ukrcom.dhcprouteconverter.RouteCodec;
+import net.ukrcom.dhcprouteconverter.RouteSet;
 import net.ukrcom.dhcprouteconverter.RouterDeviceConfig;
 
 /**
@@ -32,6 +34,7 @@ public abstract class outputFormatAbstract implements outputFormatInterface {
 
     // Variables for formatDhcpOptions()
     protected String aggregateHex;
+    protected RouteSet routes;
     protected boolean withOption249;
     protected String poolName;
 
@@ -56,6 +59,18 @@ public abstract class outputFormatAbstract implements outputFormatInterface {
         this.poolName = poolName;
     }
 
+    /**
+     * Constructor for formatDhcpOptions from routes encoded by the converter.
+     *
+     * @param routes Routes with their RFC 3442 encoding.
+     * @param withOption249 If true, includes option 249 (Microsoft-specific).
+     * @param poolName Pool name for JunOS format.
+     */
+    outputFormatAbstract(RouteSet routes, boolean withOption249, String poolName) {
+        this(routes.toHex(), withOption249, poolName);
+        this.routes = routes;
+    }
+
     /**
      * Constructor for applyConfig()
      *
@@ -86,6 +101,25 @@ public abstract class outputFormatAbstract implements outputFormatInterface {
         return results;
     }
 
+    /**
+     * Returns the routes being formatted, decoding {@link #aggregateHex} with
+     * the shared RFC 3442 decoder when the formatter was built from hex.
+     *
+     * @return Decoded routes; routes before a malformed one are kept.
+     */
+    protected RouteSet getRoutes() {
+        if (routes == null) {
+            RouteSet.Builder builder = new RouteSet.Builder();
+            try {
+                RouteCodec.decode(aggregateHex, builder);
+            } catch (IllegalArgumentException e) {
+                System.err.println("ERROR: " + e.getMessage());
+            }
+            routes = builder.build();
+        }
+        return routes;
+    }
+
     /**
      * Get configuration of pool's from devices.
      *
@@ -0,0 +1,40 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BastionConfigTest {
+
+    @Test
+    void testFromMapDefaults() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("host", "jump.ukrhub.net");
+        map.put("username", "jump");
+        BastionConfig bastion = BastionConfig.fromMap(map);
+        assertEquals(BastionConfig.DEFAULT_PORT, bastion.getPort());
+        assertEquals(BastionConfig.DEFAULT_MAX_CHANNELS, bastion.getMaxChannels());
+        assertEquals("jump@jump.ukrhub.net:22", bastion.toString());
+
+        map.put("max-channels", 0);
+        assertThrows(IllegalArgumentException.class, () -> BastionConfig.fromMap(map));
+        map.remove("host");
+        assertThrows(IllegalArgumentException.class, () -> BastionConfig.fromMap(map));
+    }
+
+    @Test
+    void testRouterBastionOverride() {
+        Map<String, Object> bastion = new HashMap<>();
+        bastion.put("host", "jump2.ukrhub.net");
+        Map<String, Object> router = new HashMap<>();
+        router.put("name", "r540-1");
+        router.put("bastion", bastion);
+        assertEquals("jump2.ukrhub.net", RouterConfig.fromMap(router).getBastion().getHost());
+
+        router.put("bastion", false);
+        RouterConfig direct = RouterConfig.fromMap(router);
+        assertNull(direct.getBastion());
+        assertTrue(direct.isDirectConnection());
+    }
+}
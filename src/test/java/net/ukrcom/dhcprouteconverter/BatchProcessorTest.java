@@ -0,0 +1,60 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchProcessorTest {
+
+    private BatchProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        ArgumentParser parser = new ArgumentParser(new String[]{});
+        processor = new BatchProcessor(new DhcpOptionConverter(parser), parser);
+    }
+
+    private String run(String input) throws IOException {
+        StringWriter out = new StringWriter();
+        processor.process(new BufferedReader(new StringReader(input)), out);
+        return out.toString();
+    }
+
+    @Test
+    void testJsonRecords() throws IOException {
+        String output = run("{\"pool\":\"p1\",\"format\":\"junos\",\"routes\":[\"10.0.0.0/8,10.0.0.1\"]}\n"
+                + "{\"pool\":\"p2\",\"format\":\"decode\",\"hex\":\"080a0a000001\"}\n");
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"pool\":\"p1\",\"options\":["));
+        assertTrue(lines[0].endsWith("]}"));
+        assertEquals("{\"pool\":\"p2\",\"routes\":[\"10.0.0.0/8 via 10.0.0.1\"]}", lines[1]);
+        assertEquals(2, processor.getRecords());
+        assertEquals(0, processor.getFailures());
+    }
+
+    @Test
+    void testFailedJsonRecordLeavesNoPartialOutput() throws IOException {
+        String output = run("{\"pool\":\"p1\",\"format\":\"bogus\",\"routes\":[\"10.0.0.0/8,10.0.0.1\"]}\n"
+                + "{\"pool\":\"p2\",\"format\":\"decode\"}\n"
+                + "{\"pool\":\"p3\",\"format\":\"decode\",\"hex\":\"080a0a000001\"}\n");
+        assertEquals("{\"pool\":\"p3\",\"routes\":[\"10.0.0.0/8 via 10.0.0.1\"]}\n", output);
+        assertEquals(3, processor.getRecords());
+        assertEquals(2, processor.getFailures());
+    }
+
+    @Test
+    void testTextRecords() throws IOException {
+        String output = run("# comment\n"
+                + "p1 bogus 10.0.0.0/8,10.0.0.1\n"
+                + "p2 decode 080a0a000001\n"
+                + "p3 default 10.0.0.0/8\n");
+        assertEquals("Route: 10.0.0.0/8 via 10.0.0.1\n", output);
+        assertEquals(3, processor.getRecords());
+        assertEquals(2, processor.getFailures());
+    }
+}
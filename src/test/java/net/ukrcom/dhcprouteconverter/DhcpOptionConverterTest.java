@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DhcpOptionConverterTest {
@@ -21,10 +22,11 @@ public class DhcpOptionConverterTest {
     void testGenerateDhcpOptionsFromNetworks() {
         List<String> networks = Arrays.asList("192.168.1.0/24", "0.0.0.0/0");
         List<String> gateways = Arrays.asList("10.0.0.1", "10.0.0.1");
-        List<String> options = converter.generateDhcpOptions(networks, gateways, false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        ConversionResult result = converter.generateDhcpOptions(networks, gateways, false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        List<String> options = result.getOptions();
         assertFalse(options.isEmpty());
         assertTrue(options.get(0).contains("aggregate_opt_121"));
-        assertTrue(converter.hasDefaultRoute());
+        assertTrue(result.hasDefaultRoute());
     }
 
     @Test
@@ -35,7 +37,6 @@ public class DhcpOptionConverterTest {
         assertTrue(routes.contains("192.168.1.0/24 via 10.0.0.1"), "Expected route 192.168.1.0/24 via 10.0.0.1");
         assertTrue(routes.contains("0.0.0.0/0 via 10.0.0.1"), "Expected default route 0.0.0.0/0 via 10.0.0.1");
         assertTrue(routes.stream().anyMatch(route -> route.trim().equals("0.0.0.0/0 via 10.0.0.1")), "Expected default route 0.0.0.0/0 via 10.0.0.1");
-        assertFalse(converter.hasDefaultRoute(), "Expected hasDefaultRoute to be true");
     }
 
     @Test
@@ -66,14 +67,37 @@ public class DhcpOptionConverterTest {
     }
 
     @Test
-    void testHasDefaultRoutePersistence() {
+    void testHasDefaultRoutePerResult() {
         List<String> networks = Arrays.asList("0.0.0.0/0");
         List<String> gateways = Arrays.asList("10.0.0.1");
-        converter.generateDhcpOptions(networks, gateways, false, DhcpOptionConverter.Format.DEFAULT, null, null);
-        assertTrue(converter.hasDefaultRoute());
-        // Повторний виклик не скидає hasDefaultRoute
-        converter.generateDhcpOptions(Arrays.asList("192.168.1.0/24"), Arrays.asList("10.0.0.2"), false, DhcpOptionConverter.Format.DEFAULT, null, null);
-        assertTrue(converter.hasDefaultRoute());
+        ConversionResult first = converter.generateDhcpOptions(networks, gateways, false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        assertTrue(first.hasDefaultRoute());
+        // Наступний виклик не залежить від попереднього
+        ConversionResult second = converter.generateDhcpOptions(Arrays.asList("192.168.1.0/24"), Arrays.asList("10.0.0.2"), false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        assertFalse(second.hasDefaultRoute());
+        assertTrue(first.hasDefaultRoute());
+    }
+
+    @Test
+    void testLoopbackGatewayReportedInResult() {
+        parser = new ArgumentParser(new String[]{"--with-warning-loopback"});
+        converter = new DhcpOptionConverter(parser);
+        ConversionResult result = converter.generateDhcpOptions(Arrays.asList("192.168.1.0/24", "10.0.0.0/8"),
+                Arrays.asList("127.0.0.1", "10.0.0.1"), false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        assertEquals(1, result.getWarnings().size());
+        assertTrue(result.getWarnings().get(0).startsWith("WARNING: Gateway 127.0.0.1"));
+        assertEquals(1, result.getRoutes().size());
+    }
+
+    @Test
+    void testLoopbackRoutesDoNotCountAgainstBudget() {
+        parser = new ArgumentParser(new String[]{"--with-warning-loopback", "--max-option-bytes=14"});
+        converter = new DhcpOptionConverter(parser);
+        ConversionResult result = converter.generateDhcpOptions(Arrays.asList("0.0.0.0/0", "10.0.0.0/8", "172.16.0.0/12"),
+                Arrays.asList("10.0.0.1", "127.0.0.2", "10.0.0.3"), false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        assertEquals(2, result.getRoutes().size());
+        assertEquals("000a000001", result.getRoutes().toHex().substring(0, 10));
+        assertTrue(result.getRoutes().toHex().endsWith("0cac100a000003"));
     }
 
     @Test
@@ -83,4 +107,51 @@ public class DhcpOptionConverterTest {
         String hex = converter.convertToHexRoute("192.168.1.0/24", "127.0.0.1");
         assertEquals("", hex, "Expected empty hex string for loopback gateway");
     }
+
+    @Test
+    void testAppendSegmentMatchesFullEncoding() {
+        RouteSegment segment = RouteSegment.compile(List.of(
+                Map.of("network", "10.0.0.0/8", "gateway", "127.0.0.10"),
+                Map.of("network", "172.16.0.0/12", "gateway", "127.0.0.172")), RouteList.Source.APPEND);
+        RouteList pool = new RouteList();
+        converter.parseRoute("0.0.0.0/0", "94.176.198.17", RouteList.Source.DEFAULT_GATEWAY, pool);
+        List<String> fast = converter.generateDhcpOptions(pool, segment, false, DhcpOptionConverter.Format.JUNOS, "p1", null).getOptions();
+        assertEquals(List.of("set access address-assignment pool p1 family inet dhcp-attributes option 121 hex-string "
+                + "005eb0c611080a7f00000a0cac107f0000ac"), fast);
+
+        // A pool route naming a segment network wins by priority
+        converter.parseRoute("10.0.0.0/8", "1.1.1.1", RouteList.Source.COMMON, pool);
+        List<String> overridden = converter.generateDhcpOptions(pool, segment, false, DhcpOptionConverter.Format.JUNOS, "p1", null).getOptions();
+        assertTrue(overridden.get(0).endsWith("hex-string 005eb0c611080a010101010cac107f0000ac"));
+    }
+
+    @Test
+    void testAppendSegmentUnreachableByPoolRoutes() {
+        RouteSegment segment = RouteSegment.compile(List.of(
+                Map.of("network", "10.0.0.0/8", "gateway", "10.255.0.1")), RouteList.Source.APPEND);
+        assertTrue(segment.overlaps(0x0a000000, 9));
+        assertTrue(segment.overlaps(0x00000000, 4));
+        assertFalse(segment.overlaps(0xac100000, 12));
+        RouteList pool = new RouteList();
+        converter.parseRoute("0.0.0.0/0", "94.176.198.17", RouteList.Source.DEFAULT_GATEWAY, pool);
+        converter.parseRoute("10.0.0.0/9", "1.1.1.1", RouteList.Source.COMMON, pool);
+        converter.parseRoute("10.128.0.0/9", "1.1.1.2", RouteList.Source.COMMON, pool);
+        ConversionResult result = converter.generateDhcpOptions(pool, segment, false, DhcpOptionConverter.Format.DEFAULT, null, null);
+        assertEquals(1, result.getWarnings().size());
+        assertTrue(result.getWarnings().get(0).contains("Route 10.0.0.0/8 via 10.255.0.1 (append routes) is unreachable"));
+    }
+
+    @Test
+    void testGenerateRoutesRendersNoOptions() {
+        RouteSegment segment = RouteSegment.compile(List.of(
+                Map.of("network", "172.16.0.0/12", "gateway", "10.0.0.2")), RouteList.Source.APPEND);
+        RouteList pool = new RouteList();
+        converter.parseRoute("0.0.0.0/0", "10.0.0.1", RouteList.Source.DEFAULT_GATEWAY, pool);
+        converter.parseRoute("10.0.0.0/8", "10.0.0.1", RouteList.Source.COMMON, pool);
+        ConversionResult routes = converter.generateRoutes(pool, segment, false, "p1");
+        assertTrue(routes.getOptions().isEmpty());
+        assertTrue(routes.hasDefaultRoute());
+        assertEquals(converter.generateDhcpOptions(pool, segment, false, DhcpOptionConverter.Format.JUNOS, "p1", null).getRoutes().toHex(),
+                routes.getRoutes().toHex());
+    }
 }
@@ -0,0 +1,52 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DhcpOptionWriterTest {
+
+    @Test
+    void testShortOptionIsSingleInstance() {
+        RouteSet routes = RouteSet.fromHex("080a7f00000a");
+        ByteBuffer wire = DhcpOptionWriter.toWire(routes, true);
+        assertEquals(16, wire.remaining());
+        assertEquals(121, wire.get(0) & 0xff);
+        assertEquals(6, wire.get(1));
+        assertEquals(249, wire.get(8) & 0xff);
+        assertEquals(6, wire.get(9));
+    }
+
+    @Test
+    void testLongOptionIsSplit() {
+        RouteSet.Builder builder = new RouteSet.Builder();
+        for (int i = 0; i < 40; i++) {
+            builder.add(0x0a000000 | (i << 8), 24, 0x0a000001);   // 8 bytes each, 320 in total
+        }
+        RouteSet routes = builder.build();
+        assertEquals(320, routes.encodedLength());
+        assertEquals(2, DhcpOptionWriter.instanceCount(320));
+        assertEquals(324, DhcpOptionWriter.wireLength(routes, false));
+
+        ByteBuffer wire = DhcpOptionWriter.toWire(routes, false);
+        assertEquals(121, wire.get(0) & 0xff);
+        assertEquals(255, wire.get(1) & 0xff);
+        assertEquals(121, wire.get(257) & 0xff);
+        assertEquals(65, wire.get(258) & 0xff);
+
+        // Concatenated instances give back the original payload
+        byte[] joined = new byte[320];
+        wire.get(2, joined, 0, 255);
+        wire.get(259, joined, 255, 65);
+        assertArrayEquals(routes.toByteArray(), joined);
+    }
+
+    @Test
+    void testOverflowLeavesBufferUnchanged() {
+        ByteBuffer small = ByteBuffer.allocate(4);
+        assertThrows(BufferOverflowException.class,
+                () -> DhcpOptionWriter.write(RouteSet.fromHex("080a7f00000a"), false, small));
+        assertEquals(0, small.position());
+    }
+}
@@ -0,0 +1,17 @@
+package net.ukrcom.dhcprouteconverter;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlobalConfigTest {
+
+    @Test
+    void testDomainSuffixIsNormalized() {
+        GlobalConfig config = new GlobalConfig();
+        assertEquals(".ukrhub.net", config.getDomainSuffix());
+        config.setDomainSuffix("example.net");
+        assertEquals(".example.net", config.getDomainSuffix());
+        config.setDomainSuffix("");
+        assertEquals("", config.getDomainSuffix());
+    }
+}
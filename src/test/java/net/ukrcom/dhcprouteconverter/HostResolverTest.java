@@ -0,0 +1,33 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HostResolverTest {
+
+    @Test
+    void testResolvesOnceWithinTtl() throws InterruptedException {
+        AtomicInteger lookups = new AtomicInteger();
+        // Без справжнього DNS: router.invalid не резолвиться, решта - IP-літерали
+        HostResolver resolver = new HostResolver(60, host -> {
+            lookups.incrementAndGet();
+            if (host.equals("router.invalid")) {
+                throw new UnknownHostException(host + ": Name or service not known");
+            }
+            return InetAddress.getByName(host);
+        });
+        assertNull(resolver.lookup("127.0.0.1"));
+        assertEquals(2, resolver.resolveAll(List.of("127.0.0.1", "router.invalid", "127.0.0.1"), 4, 10_000));
+        assertEquals(2, lookups.get());
+        assertEquals("127.0.0.1", resolver.lookup("127.0.0.1").getHostAddress());
+        assertNull(resolver.getFailure("127.0.0.1"));
+        assertNull(resolver.lookup("router.invalid"));
+        assertEquals("router.invalid: Name or service not known", resolver.getFailure("router.invalid"));
+        assertEquals(0, resolver.resolveAll(List.of("127.0.0.1", "router.invalid"), 4, 10_000));
+        assertEquals(2, lookups.get());
+    }
+}
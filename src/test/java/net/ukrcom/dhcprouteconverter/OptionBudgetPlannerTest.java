@@ -0,0 +1,33 @@
+package net.ukrcom.dhcprouteconverter;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptionBudgetPlannerTest {
+
+    @Test
+    void testKeepsHigherPriorityAndShorterPrefixesFirst() {
+        RouteList routes = new RouteList();
+        routes.add(0xc0a80100, 24, 0x0a000001, RouteList.Source.APPEND);          // 8 bytes
+        routes.add(0x0a000000, 8, 0x0a000002, RouteList.Source.COMMON);           // 6 bytes
+        routes.add(0xac100000, 12, 0x0a000003, RouteList.Source.COMMON);          // 7 bytes
+        routes.add(0x00000000, 0, 0x0a000001, RouteList.Source.DEFAULT_GATEWAY);  // 5 bytes
+        assertEquals(28, OptionBudgetPlanner.wireLength(routes, false));
+
+        RouteList planned = new OptionBudgetPlanner(22, false).plan(routes, "p", new ConversionResult.Builder());
+        assertEquals(3, planned.size());
+        assertTrue(OptionBudgetPlanner.wireLength(planned, false) <= 22);
+        for (int i = 0; i < planned.size(); i++) {
+            assertNotEquals(RouteList.Source.APPEND, planned.source(i));
+        }
+    }
+
+    @Test
+    void testOption249CountsAgainstBudget() {
+        RouteList routes = new RouteList();
+        routes.add(0x00000000, 0, 0x0a000001, RouteList.Source.DEFAULT_GATEWAY);
+        routes.add(0x0a000000, 8, 0x0a000002, RouteList.Source.COMMON);
+        assertSame(routes, new OptionBudgetPlanner(14, false).plan(routes, null, new ConversionResult.Builder()));
+        assertEquals(1, new OptionBudgetPlanner(14, true).plan(routes, null, new ConversionResult.Builder()).size());
+    }
+}
@@ -0,0 +1,62 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptionChangePlanTest {
+
+    private static final String ROUTES = "18c0a8010a000001000a000001";
+
+    private static Map<String, PoolDeviceConfig> device(String option121, String option249) {
+        PoolDeviceConfig pool = new PoolDeviceConfig("10.0.0.1", "10.0.0.0/24", option121);
+        pool.setOption249(option249);
+        Map<String, PoolDeviceConfig> device = new LinkedHashMap<>();
+        device.put("pool1", pool);
+        return device;
+    }
+
+    private static Map<String, RouteSet> desired(RouteSet routes) {
+        Map<String, RouteSet> desired = new LinkedHashMap<>();
+        desired.put("pool1", routes);
+        return desired;
+    }
+
+    @Test
+    void testUnchangedOptionsGiveEmptyPlan() {
+        RouteSet routes = RouteSet.fromHex(ROUTES);
+        assertTrue(OptionChangePlan.diff("r1", desired(routes), device(ROUTES.toUpperCase(), "18 c0a801 0a000001 000a000001"), true).isEmpty());
+        // Той самий набір маршрутів в іншому порядку
+        assertTrue(OptionChangePlan.diff("r1", desired(routes), device("000a00000118c0a8010a000001", null), false).isEmpty());
+        assertTrue(OptionChangePlan.diff("r1", desired(RouteSet.EMPTY), device(null, null), true).isEmpty());
+    }
+
+    @Test
+    void testAddReplaceDelete() {
+        RouteSet routes = RouteSet.fromHex(ROUTES);
+        List<OptionChangePlan.Change> changes = OptionChangePlan.diff("r1", desired(routes), device("000a000002", null), true).getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(OptionChangePlan.Operation.REPLACE, changes.get(0).getOperation());
+        assertEquals(121, changes.get(0).getCode());
+        assertEquals(OptionChangePlan.Operation.ADD, changes.get(1).getOperation());
+        assertEquals(249, changes.get(1).getCode());
+        assertEquals(routes, changes.get(1).getRoutes());
+
+        changes = OptionChangePlan.diff("r1", desired(RouteSet.EMPTY), device(ROUTES, ROUTES), true).getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(OptionChangePlan.Operation.DELETE, changes.get(0).getOperation());
+        assertEquals(OptionChangePlan.Operation.DELETE, changes.get(1).getOperation());
+    }
+
+    @Test
+    void testOption249LeftAloneWithoutFlag() {
+        OptionChangePlan plan = OptionChangePlan.diff("r1", desired(RouteSet.fromHex(ROUTES)), device(ROUTES, "ff"), false);
+        assertTrue(plan.isEmpty());
+        plan = OptionChangePlan.diff("r1", desired(RouteSet.fromHex(ROUTES)), null, false);
+        assertEquals(1, plan.getChanges().size());
+        assertEquals(OptionChangePlan.Operation.ADD, plan.getChanges().get(0).getOperation());
+        assertEquals(List.of("pool1"), List.copyOf(plan.getPoolNames()));
+    }
+}
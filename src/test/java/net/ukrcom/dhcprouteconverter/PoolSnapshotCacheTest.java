@@ -0,0 +1,27 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoolSnapshotCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSnapshotReusedOnlyForSameRevisionAndRequest() {
+        PoolSnapshotCache cache = new PoolSnapshotCache(directory.resolve("snapshots"));
+        assertNull(cache.load("r540-1", "1700000000 admin cli", "<rpc/>"));
+
+        cache.store("r540-1", "1700000000 admin cli", "<rpc/>", "<rpc-reply>pools</rpc-reply>");
+        assertEquals("<rpc-reply>pools</rpc-reply>", cache.load("r540-1", "1700000000 admin cli", "<rpc/>"));
+        assertNull(cache.load("r540-1", "1700000600 admin cli", "<rpc/>"));
+        assertNull(cache.load("r540-1", "1700000000 admin cli", "<rpc><other/></rpc>"));
+        assertNull(cache.load("r560-1", "1700000000 admin cli", "<rpc/>"));
+
+        cache.store("r540-1", "1700000600 admin cli", "<rpc/>", "<rpc-reply>new</rpc-reply>");
+        assertEquals("<rpc-reply>new</rpc-reply>", cache.load("r540-1", "1700000600 admin cli", "<rpc/>"));
+    }
+}
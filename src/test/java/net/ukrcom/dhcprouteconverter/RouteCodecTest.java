@@ -0,0 +1,80 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteCodecTest {
+
+    @Test
+    void testParseAddress() {
+        assertEquals(0x0a000001L, RouteCodec.parseAddress("10.0.0.1"));
+        assertEquals(0xffffffffL, RouteCodec.parseAddress("255.255.255.255"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseAddress("256.0.0.1"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseAddress("10.0.0"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseAddress("10.0.0.1.5"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseAddress("10.0.0.0001"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseAddress(""));
+    }
+
+    @Test
+    void testParseCidr() {
+        long cidr = RouteCodec.parseCidr("192.168.1.0/24");
+        assertEquals(0xc0a80100, RouteCodec.cidrAddress(cidr));
+        assertEquals(24, RouteCodec.cidrLength(cidr));
+        assertEquals(0, RouteCodec.cidrLength(RouteCodec.parseCidr("0.0.0.0/0")));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseCidr("192.168.1.0/33"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseCidr("192.168.1.0"));
+        assertEquals(RouteCodec.INVALID, RouteCodec.parseCidr("192.168.1.0/"));
+    }
+
+    @Test
+    void testEncodeToHex() {
+        byte[] buffer = new byte[2 * RouteCodec.MAX_ROUTE_BYTES];
+        int length = RouteCodec.encode(0xc0a80100, 24, 0x0a000001, buffer, 0);
+        length = RouteCodec.encode(0, 0, 0x0a000001, buffer, length);
+        assertEquals("18c0a8010a000001000a000001", RouteCodec.toHex(buffer, 0, length));
+        assertEquals(8, RouteCodec.encodedLength(24));
+        assertEquals(5, RouteCodec.encodedLength(0));
+        assertEquals(9, RouteCodec.encodedLength(25));
+    }
+
+    @Test
+    void testDecodeHexAndBytesAgree() {
+        List<String> fromHex = new ArrayList<>();
+        int count = RouteCodec.decode("18C0A8010a000001000a000001",
+                (prefix, length, gateway) -> fromHex.add(RouteCodec.formatAddress(prefix) + "/" + length + "," + RouteCodec.formatAddress(gateway)));
+        assertEquals(2, count);
+        assertEquals(List.of("192.168.1.0/24,10.0.0.1", "0.0.0.0/0,10.0.0.1"), fromHex);
+
+        byte[] payload = {0x18, (byte) 0xc0, (byte) 0xa8, 0x01, 0x0a, 0x00, 0x00, 0x01, 0x00, 0x0a, 0x00, 0x00, 0x01};
+        List<String> fromBytes = new ArrayList<>();
+        RouteCodec.decode(ByteBuffer.wrap(payload),
+                (prefix, length, gateway) -> fromBytes.add(RouteCodec.formatAddress(prefix) + "/" + length + "," + RouteCodec.formatAddress(gateway)));
+        assertEquals(fromHex, fromBytes);
+    }
+
+    @Test
+    void testMatchesHexIgnoresCaseAndWhitespace() {
+        RouteSet routes = RouteSet.fromHex("18c0a8010a000001000a000001");
+        assertTrue(routes.matchesHex("18C0A8010A000001000A000001"));
+        assertTrue(routes.matchesHex(" 18c0a801 0a000001\n000a000001 "));
+        assertFalse(routes.matchesHex("18c0a8010a000001000a0000"));
+        assertFalse(routes.matchesHex("18c0a8010a000001000a00000100"));
+        assertFalse(routes.matchesHex("18c0a8010a000001000a0000zz"));
+        assertFalse(routes.matchesHex(null));
+        assertTrue(RouteSet.EMPTY.matchesHex(null));
+        assertTrue(RouteSet.EMPTY.matchesHex(" "));
+    }
+
+    @Test
+    void testDecodeTruncatedPayload() {
+        List<Integer> lengths = new ArrayList<>();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RouteCodec.decode("18c0a8010a000001000a00", (prefix, length, gateway) -> lengths.add(length)));
+        assertEquals("Incomplete hex string at gateway", e.getMessage());
+        assertEquals(List.of(24), lengths);
+    }
+}
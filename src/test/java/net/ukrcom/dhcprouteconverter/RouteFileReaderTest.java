@@ -0,0 +1,43 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadSkipsCommentsAndInvalidLines() throws IOException {
+        Path file = tempDir.resolve("routes.csv");
+        Files.writeString(file, "# tenant routes\r\n10.0.0.0/8,10.0.0.1\r\n\r\n 192.168.1.0/24 , 10.0.0.2 \nbroken\n172.16.0.0/12,10.0.0.3", StandardCharsets.US_ASCII);
+        RouteList routes = new RouteFileReader(new ArgumentParser(new String[]{})).read(file);
+        assertEquals(3, routes.size());
+        assertEquals(0xc0a80100, routes.prefix(1));
+        assertEquals(24, routes.prefixLength(1));
+        assertEquals(0x0a000002, routes.gateway(1));
+        assertEquals(12, routes.prefixLength(2));
+    }
+
+    @Test
+    void testReadLargeFileKeepsOrderAcrossChunks() throws IOException {
+        Path file = tempDir.resolve("large.csv");
+        StringBuilder text = new StringBuilder();
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            text.append(10 + (i >>> 16)).append('.').append((i >>> 8) & 0xff).append('.').append(i & 0xff).append(".0/24,10.0.0.1\n");
+        }
+        Files.writeString(file, text, StandardCharsets.US_ASCII);
+        RouteList routes = new RouteFileReader(new ArgumentParser(new String[]{})).read(file);
+        assertEquals(count, routes.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(((10 + (i >>> 16)) << 24) | ((i & 0xffff) << 8), routes.prefix(i));
+        }
+    }
+}
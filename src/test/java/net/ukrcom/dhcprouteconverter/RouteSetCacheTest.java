@@ -0,0 +1,48 @@
+package net.ukrcom.dhcprouteconverter;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteSetCacheTest {
+
+    private static RouteSet encode(RouteList routes) {
+        RouteSet.Builder builder = new RouteSet.Builder();
+        for (int i = 0; i < routes.size(); i++) {
+            builder.add(routes.prefix(i), routes.prefixLength(i), routes.gateway(i));
+        }
+        return builder.build();
+    }
+
+    private static RouteList routes(int gateway) {
+        RouteList routes = new RouteList();
+        routes.add(0, 0, gateway, RouteList.Source.DEFAULT_GATEWAY);
+        routes.add(0x0a000000, 8, 0x7f00000a, RouteList.Source.APPEND);
+        return routes;
+    }
+
+    @Test
+    void testIdenticalRoutesShareOneRouteSet() {
+        RouteSetCache cache = new RouteSetCache();
+        RouteSet first = cache.get(routes(0x5eb0c611), RouteSetCacheTest::encode);
+        RouteSet second = cache.get(routes(0x5eb0c611), RouteSetCacheTest::encode);
+        RouteSet other = cache.get(routes(0x5eb0c601), RouteSetCacheTest::encode);
+        assertSame(first, second);
+        assertNotEquals(first, other);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        RouteSetCache cache = new RouteSetCache(2);
+        RouteSet a = cache.get(routes(1), RouteSetCacheTest::encode);
+        cache.get(routes(2), RouteSetCacheTest::encode);
+        cache.get(routes(1), RouteSetCacheTest::encode);
+        cache.get(routes(3), RouteSetCacheTest::encode);   // evicts routes(2)
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get(routes(1), RouteSetCacheTest::encode));
+        long misses = cache.getMisses();
+        cache.get(routes(2), RouteSetCacheTest::encode);
+        assertEquals(misses + 1, cache.getMisses());
+    }
+}
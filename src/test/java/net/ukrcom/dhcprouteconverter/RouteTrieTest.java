@@ -0,0 +1,100 @@
+package net.ukrcom.dhcprouteconverter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteTrieTest {
+
+    @Test
+    void testSummarizeMergesSiblingsAndDropsCovered() {
+        RouteList list = new RouteList();
+        list.add(0x0a000000, 9, 0x01010101);   // 10.0.0.0/9
+        list.add(0x0a800000, 9, 0x01010101);   // 10.128.0.0/9
+        list.add(0xac100000, 12, 0x02020202);  // 172.16.0.0/12
+        list.add(0xac110000, 16, 0x02020202);  // 172.17.0.0/16, covered by 172.16.0.0/12
+        list.add(0xac120000, 16, 0x03030303);  // 172.18.0.0/16, different gateway
+        RouteTrie trie = RouteTrie.of(list);
+        trie.summarize();
+        RouteList summarized = trie.toRouteList();
+        assertEquals(3, summarized.size());
+        assertEquals(0x0a000000, summarized.prefix(0));
+        assertEquals(8, summarized.prefixLength(0));
+        assertEquals(0xac100000, summarized.prefix(1));
+        assertEquals(12, summarized.prefixLength(1));
+        assertEquals(0xac120000, summarized.prefix(2));
+    }
+
+    @Test
+    void testResolveAppliesSourcePriority() {
+        RouteList list = new RouteList();
+        list.add(0x0a000000, 8, 0x03030303, RouteList.Source.APPEND);          // 10.0.0.0/8
+        list.add(0x0a000000, 8, 0x02020202, RouteList.Source.COMMON);          // same network, wins
+        list.add(0x0a000000, 8, 0x01010101, RouteList.Source.COMMON);          // tie, first one wins
+        list.add(0x00000000, 0, 0x05050505, RouteList.Source.DEFAULT_GATEWAY);
+        list.add(0xc0a80100, 24, 0x02020202, RouteList.Source.COMMON);         // 192.168.1.0/24
+        list.add(0xc0a80100, 25, 0x02020202, RouteList.Source.APPEND);         // covers the lower half
+        list.add(0xc0a80180, 25, 0x02020202, RouteList.Source.APPEND);         // covers the upper half
+        List<int[]> overridden = new ArrayList<>();
+        List<Integer> unreachable = new ArrayList<>();
+        RouteList resolved = RouteTrie.resolve(list, new RouteTrie.ConflictListener() {
+            @Override
+            public void overridden(int winner, int loser) {
+                overridden.add(new int[]{winner, loser});
+            }
+
+            @Override
+            public void unreachable(int route) {
+                unreachable.add(route);
+            }
+        });
+        assertEquals(5, resolved.size());
+        assertEquals(0x02020202, resolved.gateway(0));
+        assertEquals(RouteList.Source.COMMON, resolved.source(0));
+        assertEquals(0, resolved.prefixLength(1));
+        assertEquals(2, overridden.size());
+        assertArrayEquals(new int[]{1, 0}, overridden.get(0));
+        assertArrayEquals(new int[]{1, 2}, overridden.get(1));
+        assertEquals(List.of(4), unreachable);
+    }
+
+    @Test
+    void testSummarizePreservesLongestPrefixMatch() {
+        Random random = new Random(3442);
+        for (int round = 0; round < 200; round++) {
+            RouteList list = new RouteList();
+            int base = random.nextInt() & 0xffff0000;
+            for (int i = 0; i < 40; i++) {
+                int length = 14 + random.nextInt(12);
+                int prefix = RouteTrie.mask(base | random.nextInt(1 << 16), length);
+                list.add(prefix, length, random.nextInt(3));
+            }
+            if (random.nextBoolean()) {
+                list.add(0, 0, random.nextInt(3));
+            }
+            RouteTrie trie = RouteTrie.of(list);
+            trie.summarize();
+            RouteList summarized = trie.toRouteList();
+            assertTrue(summarized.size() <= list.size());
+            for (int probe = 0; probe < 2000; probe++) {
+                int address = base | random.nextInt(1 << 16);
+                assertEquals(lookup(list, address), lookup(summarized, address), "round " + round);
+            }
+        }
+    }
+
+    private static long lookup(RouteList list, int address) {
+        int bestLength = -1;
+        long gateway = -1;
+        for (int i = 0; i < list.size(); i++) {
+            int length = list.prefixLength(i);
+            if (length > bestLength && RouteTrie.mask(address, length) == RouteTrie.mask(list.prefix(i), length)) {
+                bestLength = length;
+                gateway = list.gateway(i);
+            }
+        }
+        return gateway;
+    }
+}
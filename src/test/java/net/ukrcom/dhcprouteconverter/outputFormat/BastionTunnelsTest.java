@@ -0,0 +1,48 @@
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import java.util.Map;
+import net.juniper.netconf.Device;
+import net.juniper.netconf.NetconfException;
+import net.ukrcom.dhcprouteconverter.BastionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BastionTunnelsTest {
+
+
+    @AfterEach
+    void tearDown() {
+        BastionTunnels.shared().close();
+    }
+
+    @Test
+    void testIdleSessionsGiveUpTheirChannels() throws Exception {
+        BastionConfig bastion = BastionConfig.fromMap(Map.of("host", "jump.invalid", "max-channels", 2));
+        BastionTunnels tunnels = BastionTunnels.shared();
+        try (NetconfSessionPool pool = new NetconfSessionPool(8, 60)) {
+            // Роутерів більше, ніж каналів: кожен новий забирає канал у простоюючої сесії
+            for (int i = 1; i <= 5; i++) {
+                String hostname = "r" + i + ".ukrhub.net";
+                Device device = pool.acquire(hostname, "admin", "secret",
+                        () -> tunnels.connect(bastion, 1000, pool, () -> TestDevices.unconnected(hostname)));
+                pool.release(device);
+            }
+            assertEquals(5, pool.getOpened());
+        }
+    }
+
+    @Test
+    void testBusySessionsKeepTheirChannels() throws Exception {
+        BastionConfig bastion = BastionConfig.fromMap(Map.of("host", "jump.invalid", "max-channels", 1));
+        BastionTunnels tunnels = BastionTunnels.shared();
+        try (NetconfSessionPool pool = new NetconfSessionPool(8, 60)) {
+            Device busy = pool.acquire("r1.ukrhub.net", "admin", "secret",
+                    () -> tunnels.connect(bastion, 100, pool, () -> TestDevices.unconnected("r1.ukrhub.net")));
+            NetconfException e = assertThrows(NetconfException.class, () -> pool.acquire("r2.ukrhub.net", "admin", "secret",
+                    () -> tunnels.connect(bastion, 100, pool, () -> TestDevices.unconnected("r2.ukrhub.net"))));
+            assertTrue(e.getMessage().startsWith("No free channel on bastion"));
+            pool.invalidate(busy);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import net.ukrcom.dhcprouteconverter.RouteSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IscOutputTest {
+
+    @Test
+    void testIscFormatFromRouteSet() {
+        RouteSet routes = new RouteSet.Builder()
+                .add(0xc0a80000, 16, 0x7f0000c0)
+                .add(0, 0, 0x01020304)
+                .build();
+        List<String> options = new ISC(routes, true, null).formatDhcpOptions();
+        assertEquals(4, options.size());
+        assertEquals("option rfc3442-classless-static-routes 16,192,168,127,0,0,192,0,1,2,3,4", options.get(2));
+        assertEquals("option ms-classless-static-routes 16,192,168,127,0,0,192,0,1,2,3,4", options.get(3));
+    }
+
+    @Test
+    void testIscFormatFromHexMatchesRouteSet() {
+        String hex = "10c0a87f0000c0000102030418c0a8010a000001";
+        List<String> fromHex = new ISC(hex, false, null).formatDhcpOptions();
+        List<String> fromRoutes = new ISC(RouteSet.fromHex(hex), false, null).formatDhcpOptions();
+        assertEquals(fromHex, fromRoutes);
+        assertEquals("option rfc3442-classless-static-routes 16,192,168,127,0,0,192,0,1,2,3,4,24,192,168,1,10,0,0,1", fromHex.get(1));
+    }
+}
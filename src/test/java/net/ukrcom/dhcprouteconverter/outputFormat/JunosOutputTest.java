@@ -1,7 +1,14 @@
 package net.ukrcom.dhcprouteconverter.outputFormat;
 
 import org.junit.jupiter.api.Test;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import net.ukrcom.dhcprouteconverter.ApplyMethod;
+import net.ukrcom.dhcprouteconverter.ArgumentParser;
+import net.ukrcom.dhcprouteconverter.OptionChangePlan;
+import net.ukrcom.dhcprouteconverter.PoolDeviceConfig;
+import net.ukrcom.dhcprouteconverter.RouteSet;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JunosOutputTest {
@@ -21,4 +28,85 @@ public class JunosOutputTest {
         List<String> options = junos.formatDhcpOptions();
         assertTrue(options.isEmpty());
     }
+
+    @Test
+    void testParseConfigStreamsPools() {
+        String response = "<rpc-reply xmlns:junos=\"http://xml.juniper.net/junos/23.4R1/junos\">"
+                + "<configuration><access><address-assignment>"
+                + "<pool><name>r540pool1</name><family><inet>"
+                + "<network>94.176.198.0/24</network>"
+                + "<dhcp-attributes><router><name>94.176.198.17</name></router>"
+                + "<!-- <option><name>121</name><hex-string>ff</hex-string></option> -->"
+                + "<option><name>121</name><hex-string>005EB0C611</hex-string></option>"
+                + "<option><name>249</name><hex-string>005eb0c611</hex-string></option>"
+                + "</dhcp-attributes></inet></family></pool>"
+                + "<pool><name>no-gateway</name><family><inet><dhcp-attributes/></inet></family></pool>"
+                + "<pool><name>v6pool</name><family><inet6/></family></pool>"
+                + "<pool><name>r540pool2</name><family><inet>"
+                + "<dhcp-attributes><router><name>10.0.0.1</name></router></dhcp-attributes>"
+                + "</inet></family></pool>"
+                + "</address-assignment></access></configuration></rpc-reply>";
+        JUNOS junos = new JUNOS("", "user", "secret", ApplyMethod.NETCONF, new ArgumentParser(new String[]{}));
+        Map<String, PoolDeviceConfig> pools = junos.parseConfig(response, "r540-1");
+
+        assertEquals(2, pools.size());
+        PoolDeviceConfig pool1 = pools.get("r540pool1");
+        assertEquals("94.176.198.17", pool1.getDefaultGateway());
+        assertEquals("005EB0C611", pool1.getOption121());
+        assertEquals("005eb0c611", pool1.getOption249());
+        PoolDeviceConfig pool2 = pools.get("r540pool2");
+        assertEquals("10.0.0.1", pool2.getDefaultGateway());
+        assertNull(pool2.getOption121());
+        assertNull(pool2.getOption249());
+    }
+
+    @Test
+    void testGetPoolsRequestNamesDeclaredPools() {
+        String request = JUNOS.buildNetconfGetPoolsRequest(List.of("r540pool1", "a&b"));
+        assertTrue(request.contains("<pool><name>r540pool1</name><family><inet><dhcp-attributes/></inet></family></pool>"));
+        assertTrue(request.contains("<pool><name>a&amp;b</name>"));
+        assertFalse(request.contains("<pool/>"));
+    }
+
+    @Test
+    void testEditRequestBatchesAllPools() {
+        Map<String, RouteSet> pools = new LinkedHashMap<>();
+        pools.put("r540pool1", RouteSet.fromHex("005eb0c611"));
+        pools.put("r540pool2", RouteSet.fromHex("080a7f00000a"));
+        String request = JUNOS.buildNetconfEditRequest(OptionChangePlan.diff("r540-1", pools, null, true));
+        assertEquals(1, request.split("<edit-config>", -1).length - 1);
+        assertTrue(request.contains("<target><candidate/></target>"));
+        assertTrue(request.contains("<pool><name>r540pool1</name><family><inet><dhcp-attributes>"
+                + "<option><name>121</name><hex-string>005eb0c611</hex-string></option>"
+                + "<option><name>249</name><hex-string>005eb0c611</hex-string></option>"
+                + "</dhcp-attributes></inet></family></pool>"));
+        assertTrue(request.indexOf("r540pool1") < request.indexOf("r540pool2"));
+        assertFalse(request.contains("<id>"));
+    }
+
+    @Test
+    void testParseCommitRevision() throws Exception {
+        String response = "<rpc-reply xmlns:junos=\"http://xml.juniper.net/junos/23.4R1/junos\">"
+                + "<commit-information>"
+                + "<commit-history><sequence-number>0</sequence-number><user>admin</user><client>netconf</client>"
+                + "<date-time junos:seconds=\"1760000600\">2025-10-09 08:23:20 UTC</date-time></commit-history>"
+                + "<commit-history><sequence-number>1</sequence-number><user>root</user><client>cli</client>"
+                + "<date-time junos:seconds=\"1760000000\">2025-10-09 08:13:20 UTC</date-time></commit-history>"
+                + "</commit-information></rpc-reply>";
+        assertEquals("1760000600 admin netconf", JUNOS.parseCommitRevision(response));
+        assertNull(JUNOS.parseCommitRevision("<rpc-reply><commit-information/></rpc-reply>"));
+    }
+
+    @Test
+    void testEditRequestDeletesRemovedOption() {
+        Map<String, PoolDeviceConfig> device = new LinkedHashMap<>();
+        device.put("r540pool1", new PoolDeviceConfig("94.176.198.17", "94.176.198.0/24", "005eb0c611"));
+        Map<String, RouteSet> pools = new LinkedHashMap<>();
+        pools.put("r540pool1", RouteSet.EMPTY);
+        String request = JUNOS.buildNetconfEditRequest(OptionChangePlan.diff("r540-1", pools, device, false));
+        assertTrue(request.contains("<pool><name>r540pool1</name><family><inet><dhcp-attributes>"
+                + "<option operation=\"delete\"><name>121</name></option>"
+                + "</dhcp-attributes></inet></family></pool>"));
+        assertFalse(request.contains("<hex-string>"));
+    }
 }
@@ -0,0 +1,56 @@
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.juniper.netconf.Device;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetconfSessionPoolTest {
+
+
+    @Test
+    void testBrokenIdleSessionIsReplaced() throws Exception {
+        AtomicInteger connects = new AtomicInteger();
+        try (NetconfSessionPool pool = new NetconfSessionPool(4, 60)) {
+            Device first = pool.acquire("r540-1.ukrhub.net", "admin", "secret", () -> {
+                connects.incrementAndGet();
+                return TestDevices.unconnected("r540-1.ukrhub.net");
+            });
+            pool.release(first);
+            // Сесія не пройшла перевірку, тож пул відкриває нову
+            Device second = pool.acquire("r540-1.ukrhub.net", "admin", "secret", () -> {
+                connects.incrementAndGet();
+                return TestDevices.unconnected("r540-1.ukrhub.net");
+            });
+            assertNotSame(first, second);
+            assertEquals(2, connects.get());
+            assertEquals(2, pool.getOpened());
+            assertEquals(0, pool.getReused());
+            pool.invalidate(second);
+        }
+    }
+
+    @Test
+    void testHealthyIdleSessionIsReused() throws Exception {
+        AtomicInteger connects = new AtomicInteger();
+        AtomicInteger rpcs = new AtomicInteger();
+        try (NetconfSessionPool pool = new NetconfSessionPool(4, 60)) {
+            Device first = pool.acquire("r540-1.ukrhub.net", "admin", "secret", () -> {
+                connects.incrementAndGet();
+                return TestDevices.connected("r540-1.ukrhub.net", rpcs);
+            });
+            pool.release(first);
+            Device second = pool.acquire("r540-1.ukrhub.net", "admin", "secret", () -> {
+                connects.incrementAndGet();
+                return TestDevices.connected("r540-1.ukrhub.net", rpcs);
+            });
+            assertSame(first, second);
+            assertEquals(1, connects.get());
+            // Перед повторним використанням сесія відповіла на перевірку
+            assertEquals(1, rpcs.get());
+            assertEquals(1, pool.getOpened());
+            assertEquals(1, pool.getReused());
+            pool.release(second);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import com.jcraft.jsch.JSch;
+import net.ukrcom.dhcprouteconverter.ArgumentParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SshClientFactoryTest {
+
+    @Test
+    void testSharedClientPrefersCurve25519() {
+        SshClientFactory ssh = SshClientFactory.shared(new ArgumentParser(new String[0]));
+        assertSame(ssh, SshClientFactory.shared(new ArgumentParser(new String[]{"--ssh-kex=ecdh-sha2-nistp256"})));
+        assertSame(ssh.client(), SshClientFactory.shared(null).client());
+        assertTrue(JSch.getConfig("kex").startsWith("curve25519-sha256,"));
+        assertTrue(JSch.getConfig("server_host_key").startsWith("ssh-ed25519,"));
+
+        ssh.recordHandshake(30_000_000L);
+        ssh.recordHandshake(10_000_000L);
+        assertTrue(ssh.getHandshakes() >= 2);
+        assertTrue(ssh.getMaxHandshakeNanos() >= 30_000_000L);
+    }
+}
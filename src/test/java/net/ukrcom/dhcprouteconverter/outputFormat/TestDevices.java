@@ -0,0 +1,52 @@
+package net.ukrcom.dhcprouteconverter.outputFormat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.juniper.netconf.Device;
+import net.juniper.netconf.NetconfException;
+import net.juniper.netconf.XML;
+
+/**
+ * NETCONF devices for tests that never reach a router.
+ */
+final class TestDevices {
+
+    private TestDevices() {
+    }
+
+    /**
+     * @param hostname Router host name.
+     * @return Device that was never connected.
+     */
+    static Device unconnected(String hostname) throws NetconfException {
+        return Device.builder()
+                .hostName(hostname)
+                .userName("admin")
+                .password("secret")
+                .strictHostKeyChecking(false)
+                .build();
+    }
+
+    /**
+     * @param hostname Router host name.
+     * @param rpcs Counts the RPCs sent to the device.
+     * @return Device that reports itself connected and answers every RPC.
+     */
+    static Device connected(String hostname, AtomicInteger rpcs) throws NetconfException {
+        return new Device(null, hostname, 830, null, null, null, "admin", "secret", false, null, false, null, null) {
+            @Override
+            public boolean isConnected() {
+                return true;
+            }
+
+            @Override
+            public XML executeRPC(String rpc) {
+                rpcs.incrementAndGet();
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}